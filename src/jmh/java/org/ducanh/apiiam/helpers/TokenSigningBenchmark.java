@@ -0,0 +1,83 @@
+package org.ducanh.apiiam.helpers;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.ducanh.apiiam.entities.KeyPair;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens signed and verified per second on one core, for every key algorithm. Tokens carry the
+ * claims of an access token, keys go through the PEM parsing of the stored key pairs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+public class TokenSigningBenchmark {
+
+    @Param({"RSA", "ECDSA", "EDDSA"})
+    private KeyPair.Algorithm algorithm;
+
+    private Algorithm signingAlgorithm;
+    private JWTVerifier verifier;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        java.security.KeyPair keyPair = generate(algorithm);
+        signingAlgorithm = SigningKeyHelpers.signingAlgorithm(algorithm, pem(keyPair.getPrivate().getEncoded()));
+        verifier = JWT.require(SigningKeyHelpers.verifyAlgorithm(algorithm, pem(keyPair.getPublic().getEncoded())))
+                .build();
+        token = sign();
+    }
+
+    private static java.security.KeyPair generate(KeyPair.Algorithm algorithm) throws Exception {
+        return switch (algorithm) {
+            case RSA -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                yield generator.generateKeyPair();
+            }
+            case ECDSA -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                yield generator.generateKeyPair();
+            }
+            case EDDSA -> KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        };
+    }
+
+    private static String pem(byte[] encoded) {
+        return "-----BEGIN KEY-----\n" + Base64.getMimeEncoder().encodeToString(encoded) + "\n-----END KEY-----";
+    }
+
+    @Benchmark
+    public String sign() {
+        Instant now = Instant.now();
+        return JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
+                .withSubject("42")
+                .withIssuedAt(now)
+                .withExpiresAt(now.plusSeconds(5))
+                .withClaim("token_type", "ACCESS_TOKEN")
+                .withClaim("namespace", "benchmark")
+                .withClaim("email", "benchmark@example.com")
+                .withKeyId("1")
+                .withIssuer("ducanh")
+                .sign(signingAlgorithm);
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+        return verifier.verify(token);
+    }
+}
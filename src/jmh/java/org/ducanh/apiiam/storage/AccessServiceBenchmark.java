@@ -0,0 +1,87 @@
+package org.ducanh.apiiam.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ducanh.apiiam.dto.requests.CheckAccessRequest;
+import org.ducanh.apiiam.dto.responses.CheckAccessResponse;
+import org.ducanh.apiiam.repositories.GroupRoleRepository;
+import org.ducanh.apiiam.repositories.NamespaceRepository;
+import org.ducanh.apiiam.repositories.RoleInheritanceRepository;
+import org.ducanh.apiiam.repositories.RolePermissionRepository;
+import org.ducanh.apiiam.repositories.UserGroupRepository;
+import org.ducanh.apiiam.services.AccessService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Check access through {@link AccessService}, adding the namespace lookup and the metrics to the
+ * storage check. Repositories are mocks that only serve the initial load of the namespace.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class AccessServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int groups;
+
+    @Param({"10", "100"})
+    private int permissionsPerRole;
+
+    @Param({"1", "5"})
+    private int groupsPerRequest;
+
+    @Param({"0.1", "0.9"})
+    private double hitRatio;
+
+    private CheckAccessWorkload workload;
+    private List<CheckAccessRequest> requests;
+    private ThreadPoolTaskExecutor executor;
+    private AccessService accessService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = new CheckAccessWorkload(groups, permissionsPerRole, groupsPerRequest, hitRatio);
+        requests = new ArrayList<>(workload.groupIds.size());
+        for (int request = 0; request < workload.groupIds.size(); request++) {
+            requests.add(new CheckAccessRequest(workload.groupIds.get(request), workload.permissionIds.get(request)));
+        }
+        NamespaceRepository namespaceRepository = mock(NamespaceRepository.class);
+        when(namespaceRepository.findByNamespaceId(CheckAccessWorkload.NAMESPACE_ID))
+                .thenReturn(workload.namespace.namespace());
+        GroupRoleRepository groupRoleRepository = mock(GroupRoleRepository.class);
+        when(groupRoleRepository.streamAllByNamespaceId(CheckAccessWorkload.NAMESPACE_ID))
+                .thenAnswer(invocation -> workload.namespace.groupRoles().stream());
+        RolePermissionRepository rolePermissionRepository = mock(RolePermissionRepository.class);
+        when(rolePermissionRepository.streamAllByNamespaceId(CheckAccessWorkload.NAMESPACE_ID))
+                .thenAnswer(invocation -> workload.namespace.rolePermissions().stream());
+        executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        PolicyMetrics policyMetrics = new PolicyMetrics(new SimpleMeterRegistry(), 100);
+        PolicyStorageManagement policyStorageManagement = new PolicyStorageManagement(groupRoleRepository,
+                rolePermissionRepository, mock(UserGroupRepository.class), mock(RoleInheritanceRepository.class),
+                namespaceRepository, executor, BitmapPolicyStorage::new, new PolicyLoadingOptions(true, 0, 0),
+                policyMetrics, Duration.ZERO, TransactionOperations.withoutTransaction());
+        accessService = new AccessService(policyStorageManagement, policyMetrics, Duration.ZERO);
+        // loaded here, not in the first measured call
+        policyStorageManagement.getPolicyStorage(CheckAccessWorkload.NAMESPACE_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public CheckAccessResponse checkAccess() {
+        return accessService.checkAccess(requests.get(workload.next()), CheckAccessWorkload.NAMESPACE_ID, null);
+    }
+}
@@ -0,0 +1,62 @@
+package org.ducanh.apiiam.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A synthetic namespace and a fixed cycle of check requests against it. A hit asks for a
+ * permission one of the requested groups holds, a miss for one no role grants.
+ */
+final class CheckAccessWorkload {
+
+    static final String NAMESPACE_ID = "benchmark-namespace";
+    private static final int ROLES_PER_GROUP = 5;
+    private static final int PERMISSIONS = 10_000;
+    // power of two, the benchmarks cycle through the requests with a mask
+    private static final int REQUESTS = 1_024;
+    private static final long SEED = 42;
+
+    final SyntheticNamespace namespace;
+    final List<List<String>> groupIds = new ArrayList<>(REQUESTS);
+    final List<String> permissionIds = new ArrayList<>(REQUESTS);
+    private int next;
+
+    CheckAccessWorkload(int groups, int permissionsPerRole, int groupsPerRequest, double hitRatio) {
+        this.namespace = generate(groups, permissionsPerRole);
+        PolicyStorage policyStorage = new BitmapPolicyStorage(namespace.namespace(), rows(namespace));
+        Random random = new Random(SEED);
+        while (groupIds.size() < REQUESTS) {
+            List<String> requestGroups = new ArrayList<>(groupsPerRequest);
+            for (int i = 0; i < groupsPerRequest; i++) {
+                requestGroups.add("group-" + random.nextInt(groups));
+            }
+            String permissionId;
+            if (random.nextDouble() < hitRatio) {
+                List<String> granted = policyStorage.findEffectivePermissions(requestGroups);
+                if (granted.isEmpty()) {
+                    continue;
+                }
+                permissionId = granted.get(random.nextInt(granted.size()));
+            } else {
+                permissionId = "permission-missing-" + random.nextInt(PERMISSIONS);
+            }
+            groupIds.add(List.copyOf(requestGroups));
+            permissionIds.add(permissionId);
+        }
+    }
+
+    static SyntheticNamespace generate(int groups, int permissionsPerRole) {
+        return SyntheticNamespace.generate(NAMESPACE_ID, groups, ROLES_PER_GROUP, Math.max(groups / 10, 10),
+                permissionsPerRole, PERMISSIONS, SEED);
+    }
+
+    static PolicyRows rows(SyntheticNamespace namespace) {
+        return PolicyRows.of(namespace.groupRoles(), namespace.rolePermissions(), List.of());
+    }
+
+    // Benchmark threads each own a workload, no need for an atomic counter.
+    int next() {
+        return next++ & (REQUESTS - 1);
+    }
+}
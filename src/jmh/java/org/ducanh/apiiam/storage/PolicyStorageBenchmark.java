@@ -0,0 +1,43 @@
+package org.ducanh.apiiam.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Check access straight on a published {@link BitmapPolicyStorage}, the hottest path of the
+ * service. Run with {@code ./gradlew jmh}, allocation rates come from the gc profiler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class PolicyStorageBenchmark {
+
+    @Param({"1000", "100000"})
+    private int groups;
+
+    @Param({"10", "100"})
+    private int permissionsPerRole;
+
+    @Param({"1", "5"})
+    private int groupsPerRequest;
+
+    @Param({"0.1", "0.9"})
+    private double hitRatio;
+
+    private CheckAccessWorkload workload;
+    private PolicyStorage policyStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = new CheckAccessWorkload(groups, permissionsPerRole, groupsPerRequest, hitRatio);
+        policyStorage = new BitmapPolicyStorage(workload.namespace.namespace(),
+                CheckAccessWorkload.rows(workload.namespace));
+    }
+
+    @Benchmark
+    public Boolean checkAccess() {
+        int request = workload.next();
+        return policyStorage.checkAccess(workload.groupIds.get(request), workload.permissionIds.get(request));
+    }
+}
@@ -0,0 +1,33 @@
+package org.ducanh.apiiam.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build a {@link BitmapPolicyStorage} from the rows of a namespace, as a rebuild after a
+ * change that cannot be applied as a delta does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PolicyStorageBuildBenchmark {
+
+    @Param({"1000", "100000"})
+    private int groups;
+
+    @Param({"10", "100"})
+    private int permissionsPerRole;
+
+    private SyntheticNamespace namespace;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        namespace = CheckAccessWorkload.generate(groups, permissionsPerRole);
+    }
+
+    @Benchmark
+    public PolicyStorage build() {
+        return new BitmapPolicyStorage(namespace.namespace(), CheckAccessWorkload.rows(namespace));
+    }
+}
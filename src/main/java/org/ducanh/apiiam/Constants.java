@@ -15,6 +15,21 @@ public class Constants {
     public static final String PAGE_SIZE_HEADER = "X-Page-Size";
     public static final String TOTAL_ELEMENTS_HEADER = "X-Total-Elements";
     public static final String TOTAL_PAGES_HEADER = "X-Total-Pages";
+    public static final String NAMESPACE_VERSION_HEADER = "X-Namespace-Version";
+    public static final String MIN_NAMESPACE_VERSION_HEADER = "X-Min-Namespace-Version";
     public static final String THREAD_EXECUTOR = "common-thread-pool";
-    public static final String NAMESPACE_CHANGE_TOPIC = "namespace-change";
+    public static final String NAMESPACE_CHANGE_STREAM = "namespace-change-log";
+    public static final String NAMESPACE_CHANGE_EVENT_FIELD = "event";
+    // Change log records of metadata changes, they carry no policy version.
+    public static final String NAMESPACE_METADATA_EVENT_FIELD = "metadata";
+    public static final String KEY_PAIR_EVENT_FIELD = "key-pair";
+    // Near caches of namespace and key pair metadata, configured under spring.cache.
+    public static final String NAMESPACE_EXISTS_CACHE = "namespace-exists";
+    public static final String NAMESPACE_KEY_PAIR_ID_CACHE = "namespace-key-pair-ids";
+    public static final String KEY_PAIR_CACHE = "key-pairs";
+    // Serialized key sets, keyed by namespace id, the set of every namespace under GLOBAL_JWKS_KEY.
+    public static final String JWKS_CACHE = "jwks";
+    public static final String GLOBAL_JWKS_KEY = "*";
+    // Rows fetched per round trip when streaming a namespace to build its policy.
+    public static final String POLICY_ROWS_FETCH_SIZE = "1000";
 }
@@ -1,24 +1,103 @@
 package org.ducanh.apiiam.config;
 
+import lombok.Data;
 import org.ducanh.apiiam.Constants;
 import org.ducanh.apiiam.repositories.GroupRoleRepository;
 import org.ducanh.apiiam.repositories.NamespaceRepository;
+import org.ducanh.apiiam.repositories.RoleInheritanceRepository;
 import org.ducanh.apiiam.repositories.RolePermissionRepository;
+import org.ducanh.apiiam.repositories.UserGroupRepository;
+import org.ducanh.apiiam.storage.BitmapPolicyStorage;
+import org.ducanh.apiiam.storage.BitmapPolicyStorageFactory;
+import org.ducanh.apiiam.storage.MappedPolicyStorageFactory;
+import org.ducanh.apiiam.storage.PolicyLoadingOptions;
+import org.ducanh.apiiam.storage.PolicyMetrics;
+import org.ducanh.apiiam.storage.PolicySnapshotStore;
+import org.ducanh.apiiam.storage.PolicyStorageFactory;
 import org.ducanh.apiiam.storage.PolicyStorageManagement;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
 
 @Configuration
 public class PolicyStorageManagementConfig {
 
+    public enum Engine {
+        // On heap dictionary encoded bitmaps, applies deltas in place.
+        BITMAP,
+        // Memory mapped files under the configured directory, reopened after a restart.
+        MAPPED
+    }
+
+    @Data
+    public static class PolicyStorageProperties {
+        private Engine engine = Engine.BITMAP;
+        private String directory = "./data/policy-storage";
+        // Local snapshots of the bitmap engine, reloaded at startup when still at the database version.
+        private boolean snapshotEnabled = true;
+        // Load namespaces on first access instead of at startup, evicting the least recently used
+        // ones over max-namespaces or max-memory, 0 disables a budget.
+        private boolean lazy = false;
+        private int maxNamespaces = 0;
+        private DataSize maxMemory = DataSize.ofBytes(0);
+        // Delay before rebuilding a namespace after a change that cannot be applied as a delta,
+        // changes arriving meanwhile share the rebuild.
+        private Duration rebuildDebounce = Duration.ofMillis(100);
+        // Namespaces with their own metric series, the rest share one, keeps the registry bounded.
+        private int maxNamespaceTags = 100;
+
+        public PolicyLoadingOptions loadingOptions() {
+            return lazy ? new PolicyLoadingOptions(true, maxNamespaces, maxMemory.toBytes()) : PolicyLoadingOptions.EAGER;
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.policy-storage")
+    public PolicyStorageProperties policyStorageProperties() {
+        return new PolicyStorageProperties();
+    }
+
+    @Bean
+    public PolicyStorageFactory policyStorageFactory(PolicyStorageProperties policyStorageProperties) {
+        return switch (policyStorageProperties.getEngine()) {
+            case BITMAP -> policyStorageProperties.isSnapshotEnabled()
+                    ? new BitmapPolicyStorageFactory(new PolicySnapshotStore(Path.of(policyStorageProperties.getDirectory())))
+                    : BitmapPolicyStorage::new;
+            case MAPPED -> new MappedPolicyStorageFactory(Path.of(policyStorageProperties.getDirectory()));
+        };
+    }
+
+    @Bean
+    public PolicyMetrics policyMetrics(MeterRegistry meterRegistry, PolicyStorageProperties policyStorageProperties) {
+        return new PolicyMetrics(meterRegistry, policyStorageProperties.getMaxNamespaceTags());
+    }
+
     @Bean
     public PolicyStorageManagement policyStorageManagement(GroupRoleRepository groupRoleRepository,
                                                            RolePermissionRepository rolePermissionRepository,
+                                                           UserGroupRepository userGroupRepository,
+                                                           RoleInheritanceRepository roleInheritanceRepository,
                                                            NamespaceRepository namespaceRepository,
                                                            @Qualifier(value = Constants.THREAD_EXECUTOR)
-                                                           ThreadPoolTaskExecutor threadPoolTaskExecutor) {
-        return new PolicyStorageManagement(groupRoleRepository, rolePermissionRepository, namespaceRepository, threadPoolTaskExecutor);
+                                                           ThreadPoolTaskExecutor threadPoolTaskExecutor,
+                                                           PolicyStorageFactory policyStorageFactory,
+                                                           PolicyStorageProperties policyStorageProperties,
+                                                           PolicyMetrics policyMetrics,
+                                                           PlatformTransactionManager transactionManager) {
+        // rows are streamed through a cursor, which needs an open transaction
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return new PolicyStorageManagement(groupRoleRepository, rolePermissionRepository, userGroupRepository,
+                roleInheritanceRepository, namespaceRepository, threadPoolTaskExecutor, policyStorageFactory, policyStorageProperties.loadingOptions(),
+                policyMetrics, policyStorageProperties.getRebuildDebounce(), readOnlyTransaction);
     }
 }
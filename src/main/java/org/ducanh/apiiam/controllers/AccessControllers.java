@@ -5,12 +5,23 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.ducanh.apiiam.dto.requests.BatchCheckAccessRequest;
 import org.ducanh.apiiam.dto.requests.CheckAccessRequest;
+import org.ducanh.apiiam.dto.requests.EffectivePermissionsRequest;
+import org.ducanh.apiiam.dto.requests.UserCheckAccessRequest;
 import org.ducanh.apiiam.dto.responses.CheckAccessResponse;
+import org.ducanh.apiiam.dto.responses.EffectivePermissionsResponse;
 import org.ducanh.apiiam.services.AccessService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
+import static org.ducanh.apiiam.Constants.*;
+
 @RestController
 @RequestMapping("access")
 @Tag(name = "Access controllers", description = "Operations related to access control")
@@ -24,8 +35,86 @@ public class AccessControllers {
     public ResponseEntity<CheckAccessResponse> checkAccess(
             @RequestBody @Valid CheckAccessRequest checkAccessRequest,
             @RequestHeader(value = "namespace-id")
-            @Parameter(description = "Namespace ID for access control", required = true) String namespaceId
+            @Parameter(description = "Namespace ID for access control", required = true) String namespaceId,
+            @RequestHeader(value = MIN_NAMESPACE_VERSION_HEADER, required = false)
+            @Parameter(description = "Minimum namespace version to evaluate at, as returned in the "
+                    + NAMESPACE_VERSION_HEADER + " header of admin changes") Long minVersion
+    ) {
+        return ResponseEntity.ok(accessService.checkAccess(checkAccessRequest, namespaceId, minVersion));
+    }
+
+    @PostMapping("/check-access/user")
+    @Operation(summary = "Check access of a user",
+            description = "Checks if a user has access through the groups it belongs to in the namespace")
+    public ResponseEntity<CheckAccessResponse> checkUserAccess(
+            @RequestBody @Valid UserCheckAccessRequest userCheckAccessRequest,
+            @RequestHeader(value = "namespace-id")
+            @Parameter(description = "Namespace ID for access control", required = true) String namespaceId,
+            @RequestHeader(value = MIN_NAMESPACE_VERSION_HEADER, required = false)
+            @Parameter(description = "Minimum namespace version to evaluate at, as returned in the "
+                    + NAMESPACE_VERSION_HEADER + " header of admin changes") Long minVersion
     ) {
-        return ResponseEntity.ok(accessService.checkAccess(checkAccessRequest, namespaceId));
+        return ResponseEntity.ok(accessService.checkAccess(userCheckAccessRequest, namespaceId, minVersion));
+    }
+
+    @PostMapping("/check-access/batch")
+    @Operation(summary = "Check access in batch",
+            description = "Evaluates many checks, possibly across namespaces, and returns the results in request order")
+    public ResponseEntity<List<CheckAccessResponse>> checkAccessBatch(
+            @RequestBody @Valid BatchCheckAccessRequest batchCheckAccessRequest
+    ) {
+        return ResponseEntity.ok(accessService.checkAccess(batchCheckAccessRequest));
+    }
+
+    @PostMapping("/effective-permissions")
+    @Operation(summary = "Get effective permissions",
+            description = "Returns the union of the permissions granted to the groups, computed from memory and "
+                    + "stamped with the namespace version it was computed at")
+    public ResponseEntity<EffectivePermissionsResponse> getEffectivePermissions(
+            @RequestBody @Valid EffectivePermissionsRequest effectivePermissionsRequest,
+            @RequestParam(defaultValue = "PLAIN")
+            @Parameter(description = "PLAIN lists the ids, COMPACT returns them gzipped and base64 encoded")
+            EffectivePermissionsResponse.Encoding encoding,
+            @RequestHeader(value = "namespace-id")
+            @Parameter(description = "Namespace ID for access control", required = true) String namespaceId,
+            @RequestHeader(value = MIN_NAMESPACE_VERSION_HEADER, required = false)
+            @Parameter(description = "Minimum namespace version to evaluate at, as returned in the "
+                    + NAMESPACE_VERSION_HEADER + " header of admin changes") Long minVersion
+    ) {
+        return ResponseEntity.ok(accessService.getEffectivePermissions(effectivePermissionsRequest, encoding, namespaceId,
+                minVersion));
+    }
+
+    @GetMapping("/permission-id/{permissionId}/groups")
+    @Operation(summary = "Get groups granting a permission",
+            description = "Lists the groups granting the permission through one of their roles, sorted by group ID, from memory")
+    public ResponseEntity<List<String>> getGroupsGranting(
+            @PathVariable String permissionId,
+            @RequestHeader(value = "namespace-id")
+            @Parameter(description = "Namespace ID for access control", required = true) String namespaceId,
+            @PageableDefault(size = 20) Pageable pageable
+    ) {
+        return toResponse(accessService.getGroupsGranting(namespaceId, permissionId, pageable));
+    }
+
+    @GetMapping("/permission-id/{permissionId}/roles")
+    @Operation(summary = "Get roles granting a permission",
+            description = "Lists the roles granting the permission, sorted by role ID, from memory")
+    public ResponseEntity<List<String>> getRolesGranting(
+            @PathVariable String permissionId,
+            @RequestHeader(value = "namespace-id")
+            @Parameter(description = "Namespace ID for access control", required = true) String namespaceId,
+            @PageableDefault(size = 20) Pageable pageable
+    ) {
+        return toResponse(accessService.getRolesGranting(namespaceId, permissionId, pageable));
+    }
+
+    private ResponseEntity<List<String>> toResponse(Page<String> result) {
+        return ResponseEntity.ok()
+                .header(PAGE_NUMBER_HEADER, String.valueOf(result.getNumber()))
+                .header(PAGE_SIZE_HEADER, String.valueOf(result.getSize()))
+                .header(TOTAL_ELEMENTS_HEADER, String.valueOf(result.getTotalElements()))
+                .header(TOTAL_PAGES_HEADER, String.valueOf(result.getTotalPages()))
+                .body(result.getContent());
     }
-}
\ No newline at end of file
+}
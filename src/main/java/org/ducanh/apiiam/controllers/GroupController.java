@@ -8,7 +8,6 @@ import org.ducanh.apiiam.dto.requests.CreateGroupRequestDto;
 import org.ducanh.apiiam.dto.requests.UpdateGroupRequestDto;
 import org.ducanh.apiiam.dto.responses.GroupResponseDto;
 import org.ducanh.apiiam.services.GroupService;
-import org.ducanh.apiiam.services.NamespaceService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -19,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 import static org.ducanh.apiiam.Constants.*;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
 
 @RestController
 @RequestMapping("/group/namespace-id/{namespaceId}")
@@ -28,7 +28,6 @@ import static org.ducanh.apiiam.Constants.*;
 public class GroupController {
 
     private final GroupService groupService;
-    private final NamespaceService namespaceService;
 
     @PostMapping
     @Operation(summary = "Create a new group", description = "Creates a new group within the specified namespace.")
@@ -81,8 +80,7 @@ public class GroupController {
     @Operation(summary = "Delete a group", description = "Deletes a specific group by its ID within the specified namespace and increases the namespace version.")
     public ResponseEntity<Void> deleteGroup(@PathVariable String namespaceId,
                                             @PathVariable String groupId) {
-        groupService.deleteGroup(namespaceId, groupId);
-        namespaceService.increaseNamespaceVersion(namespaceId);
-        return ResponseEntity.noContent().build();
+        Long version = groupService.deleteGroup(namespaceId, groupId);
+        return ResponseEntity.noContent().headers(namespaceVersionHeaders(version)).build();
     }
 }
\ No newline at end of file
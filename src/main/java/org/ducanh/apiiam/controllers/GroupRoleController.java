@@ -9,7 +9,6 @@ import org.ducanh.apiiam.dto.requests.RemoveRolesFromGroupRequestDto;
 import org.ducanh.apiiam.dto.responses.GroupResponseDto;
 import org.ducanh.apiiam.dto.responses.GroupRoleResponseDto;
 import org.ducanh.apiiam.services.GroupRoleService;
-import org.ducanh.apiiam.services.NamespaceService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -20,6 +19,7 @@ import jakarta.validation.Valid;
 import java.util.List;
 
 import static org.ducanh.apiiam.Constants.*;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
 
 @RestController
 @RequestMapping("/group-role/{namespaceId}")
@@ -29,7 +29,6 @@ import static org.ducanh.apiiam.Constants.*;
 public class GroupRoleController {
 
     private final GroupRoleService groupRoleService;
-    private final NamespaceService namespaceService;
 
     @PostMapping("/group-id/{groupId}/roles")
     @Operation(summary = "Assign roles to group",
@@ -40,9 +39,8 @@ public class GroupRoleController {
             @Valid @RequestBody AssignRolesToGroupRequestDto request
     ) {
         log.info("Assigning roles {} to group {}", request.roleIds(), groupId);
-        groupRoleService.assignRolesToGroup(namespaceId, groupId, request.roleIds());
-        namespaceService.increaseNamespaceVersion(namespaceId);
-        return ResponseEntity.ok().build();
+        Long version = groupRoleService.assignRolesToGroup(namespaceId, groupId, request.roleIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
     }
 
     @DeleteMapping("/group-id/{groupId}/roles")
@@ -54,9 +52,8 @@ public class GroupRoleController {
             @Valid @RequestBody RemoveRolesFromGroupRequestDto request
     ) {
         log.info("Removing roles {} from group {}", request.roleIds(), groupId);
-        groupRoleService.removeRolesFromGroup(namespaceId, groupId, request.roleIds());
-        namespaceService.increaseNamespaceVersion(namespaceId);
-        return ResponseEntity.ok().build();
+        Long version = groupRoleService.removeRolesFromGroup(namespaceId, groupId, request.roleIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
     }
 
     @GetMapping("/group-id/{groupId}/roles")
@@ -0,0 +1,52 @@
+package org.ducanh.apiiam.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.ducanh.apiiam.dto.responses.JwksDocument;
+import org.ducanh.apiiam.services.JwksService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@RestController
+@Tag(name = "Jwks Controller", description = "Public keys to verify the issued tokens")
+public class JwksController {
+
+    private final JwksService jwksService;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwksService jwksService,
+                          @Value("${app.jwks.max-age}") Duration maxAge) {
+        this.jwksService = jwksService;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(summary = "Get key set",
+            description = "Retrieves the public keys of every namespace, revalidate with If-None-Match")
+    public ResponseEntity<byte[]> getJwks() {
+        return toResponse(jwksService.getJwks());
+    }
+
+    @GetMapping("/namespace/{namespaceId}/.well-known/jwks.json")
+    @Operation(summary = "Get key set of a namespace",
+            description = "Retrieves the public keys verifying the tokens of a namespace, revalidate with If-None-Match")
+    public ResponseEntity<byte[]> getNamespaceJwks(@PathVariable String namespaceId) {
+        return toResponse(jwksService.getJwks(namespaceId));
+    }
+
+    // A request whose If-None-Match holds the etag is answered 304 without the body.
+    private ResponseEntity<byte[]> toResponse(JwksDocument document) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(document.etag())
+                .cacheControl(cacheControl)
+                .body(document.body());
+    }
+}
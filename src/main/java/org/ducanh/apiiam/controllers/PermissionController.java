@@ -9,7 +9,6 @@ import org.ducanh.apiiam.dto.requests.CreatePermissionRequestDto;
 import org.ducanh.apiiam.dto.requests.IndexPermissionRequestParamsDto;
 import org.ducanh.apiiam.dto.requests.UpdatePermissionRequestDto;
 import org.ducanh.apiiam.dto.responses.PermissionResponseDto;
-import org.ducanh.apiiam.services.NamespaceService;
 import org.ducanh.apiiam.services.PermissionService;
 import org.ducanh.apiiam.services.RoleService;
 import org.springframework.data.domain.Page;
@@ -22,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 import static org.ducanh.apiiam.Constants.*;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
 
 @RestController
 @RequestMapping("/permission/namespace-id/{namespaceId}")
@@ -31,7 +31,6 @@ import static org.ducanh.apiiam.Constants.*;
 public class PermissionController {
 
     private final PermissionService permissionService;
-    private final NamespaceService namespaceService;
 
     @PostMapping()
     @Operation(summary = "Create permission",
@@ -88,8 +87,7 @@ public class PermissionController {
     public ResponseEntity<Void> deletePermission(
             @PathVariable String permissionId,
             @PathVariable String namespaceId) {
-        permissionService.deletePermission(namespaceId, permissionId);
-        namespaceService.increaseNamespaceVersion(namespaceId);
-        return ResponseEntity.noContent().build();
+        Long version = permissionService.deletePermission(namespaceId, permissionId);
+        return ResponseEntity.noContent().headers(namespaceVersionHeaders(version)).build();
     }
 }
\ No newline at end of file
@@ -10,7 +10,6 @@ import org.ducanh.apiiam.dto.requests.UpdateRoleRequestDto;
 import org.ducanh.apiiam.dto.responses.CreateRoleResponseDto;
 import org.ducanh.apiiam.dto.responses.RoleResponseDto;
 import org.ducanh.apiiam.dto.responses.UpdateRoleResponseDto;
-import org.ducanh.apiiam.services.NamespaceService;
 import org.ducanh.apiiam.services.RoleService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -22,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 import static org.ducanh.apiiam.Constants.*;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
 
 @RestController
 @RequestMapping("role/namespace-id/{namespaceId}")
@@ -30,7 +30,6 @@ import static org.ducanh.apiiam.Constants.*;
 @RequiredArgsConstructor
 public class RoleController {
     private final RoleService roleService;
-    private final NamespaceService namespaceService;
 
     @PostMapping
     @Operation(summary = "Create new role",
@@ -94,8 +93,7 @@ public class RoleController {
             @PathVariable String roleId,
             @PathVariable String namespaceId) {
         log.info("Deleting role with id: {}", roleId);
-        roleService.deleteRole(namespaceId, roleId);
-        namespaceService.increaseNamespaceVersion(namespaceId);
-        return ResponseEntity.noContent().build();
+        Long version = roleService.deleteRole(namespaceId, roleId);
+        return ResponseEntity.noContent().headers(namespaceVersionHeaders(version)).build();
     }
 }
\ No newline at end of file
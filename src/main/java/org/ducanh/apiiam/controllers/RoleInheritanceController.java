@@ -0,0 +1,75 @@
+package org.ducanh.apiiam.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.requests.AssignChildRolesToRoleRequestDto;
+import org.ducanh.apiiam.dto.requests.RemoveChildRolesFromRoleRequestDto;
+import org.ducanh.apiiam.dto.responses.RoleResponseDto;
+import org.ducanh.apiiam.services.RoleInheritanceService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static org.ducanh.apiiam.Constants.*;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
+
+@RestController
+@RequestMapping("/role-inheritance/{namespaceId}")
+@Tag(name = "Role Inheritance Controller",
+        description = "Operations for managing roles that include the permissions of other roles")
+@Slf4j
+@RequiredArgsConstructor
+public class RoleInheritanceController {
+    private final RoleInheritanceService roleInheritanceService;
+
+    @PostMapping("/role-id/{roleId}/child-roles")
+    @Operation(summary = "Assign child roles to role",
+            description = "Makes a role include every permission of the child roles, rejected when it creates a cycle")
+    public ResponseEntity<Void> assignChildRolesToRole(
+            @PathVariable String roleId,
+            @PathVariable String namespaceId,
+            @Valid @RequestBody AssignChildRolesToRoleRequestDto request
+    ) {
+        log.info("Assigning child roles {} to role {}", request.childRoleIds(), roleId);
+        Long version = roleInheritanceService.assignChildRolesToRole(namespaceId, roleId, request.childRoleIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
+    }
+
+    @DeleteMapping("/role-id/{roleId}/child-roles")
+    @Operation(summary = "Remove child roles from role",
+            description = "Removes specified child roles from a role within a namespace")
+    public ResponseEntity<Void> removeChildRolesFromRole(
+            @PathVariable String roleId,
+            @PathVariable String namespaceId,
+            @Valid @RequestBody RemoveChildRolesFromRoleRequestDto request
+    ) {
+        log.info("Removing child roles {} from role {}", request.childRoleIds(), roleId);
+        Long version = roleInheritanceService.removeChildRolesFromRole(namespaceId, roleId, request.childRoleIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
+    }
+
+    @GetMapping("/role-id/{roleId}/child-roles")
+    @Operation(summary = "Get child roles",
+            description = "Retrieves the roles directly included by a role with optional filtering")
+    public ResponseEntity<List<RoleResponseDto>> getChildRoles(
+            @PathVariable String roleId,
+            @PathVariable String namespaceId,
+            @RequestParam(required = false) String roleName,
+            @PageableDefault(size = 20) Pageable pageable
+    ) {
+        Page<RoleResponseDto> result = roleInheritanceService.getChildRoles(namespaceId, roleId, roleName, pageable);
+        return ResponseEntity.ok()
+                .header(PAGE_NUMBER_HEADER, String.valueOf(result.getNumber()))
+                .header(PAGE_SIZE_HEADER, String.valueOf(result.getSize()))
+                .header(TOTAL_ELEMENTS_HEADER, String.valueOf(result.getTotalElements()))
+                .header(TOTAL_PAGES_HEADER, String.valueOf(result.getTotalPages()))
+                .body(result.getContent());
+    }
+}
@@ -9,7 +9,6 @@ import org.ducanh.apiiam.dto.requests.AssignPermissionsToRoleRequestDto;
 import org.ducanh.apiiam.dto.requests.RemovePermissionsFromRoleRequestDto;
 import org.ducanh.apiiam.dto.responses.PermissionRoleResponseDto;
 import org.ducanh.apiiam.dto.responses.RolePermissionResponseDto;
-import org.ducanh.apiiam.services.NamespaceService;
 import org.ducanh.apiiam.services.RolePermissionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -20,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 import static org.ducanh.apiiam.Constants.*;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
 
 @RestController
 @RequestMapping("/role-permission/{namespaceId}")
@@ -29,7 +29,6 @@ import static org.ducanh.apiiam.Constants.*;
 @RequiredArgsConstructor
 public class RolePermissionController {
     private final RolePermissionService rolePermissionService;
-    private final NamespaceService namespaceService;
 
     @PostMapping("/role-id/{roleId}/permissions")
     @Operation(summary = "Assign permissions to role",
@@ -40,9 +39,8 @@ public class RolePermissionController {
             @Valid @RequestBody AssignPermissionsToRoleRequestDto request
     ) {
         log.info("Assigning permissions {} to role {}", request.permissionIds(), roleId);
-        rolePermissionService.assignPermissionsToRole(namespaceId, roleId, request.permissionIds());
-        namespaceService.increaseNamespaceVersion(namespaceId);
-        return ResponseEntity.ok().build();
+        Long version = rolePermissionService.assignPermissionsToRole(namespaceId, roleId, request.permissionIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
     }
 
     @DeleteMapping("/role-id/{roleId}/permissions")
@@ -54,9 +52,8 @@ public class RolePermissionController {
             @Valid @RequestBody RemovePermissionsFromRoleRequestDto request
     ) {
         log.info("Removing permissions {} from role {}", request.permissionIds(), roleId);
-        rolePermissionService.removePermissionsFromRole(namespaceId, roleId, request.permissionIds());
-        namespaceService.increaseNamespaceVersion(namespaceId);
-        return ResponseEntity.ok().build();
+        Long version = rolePermissionService.removePermissionsFromRole(namespaceId, roleId, request.permissionIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
     }
 
     @GetMapping("/role-id/{roleId}/permissions")
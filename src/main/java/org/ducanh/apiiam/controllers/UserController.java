@@ -22,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 import static org.ducanh.apiiam.Constants.*;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
 
 @RestController
 @RequestMapping("user")
@@ -78,8 +79,8 @@ public class UserController {
     @Operation(summary = "Delete user",
             description = "Deletes a user account by their ID")
     public ResponseEntity<Void> deleteUser(@PathVariable Long userId) {
-        userService.deleteUser(userId);
-        return ResponseEntity.noContent().build();
+        Long version = userService.deleteUser(userId);
+        return ResponseEntity.noContent().headers(namespaceVersionHeaders(version)).build();
     }
 
     @PatchMapping("/user-id/{userId}/password")
@@ -21,6 +21,7 @@ import java.util.List;
 
 import static org.ducanh.apiiam.Constants.*;
 import static org.ducanh.apiiam.Constants.TOTAL_PAGES_HEADER;
+import static org.ducanh.apiiam.helpers.ResponseHelpers.namespaceVersionHeaders;
 
 @RestController
 @RequestMapping("/user-group/")
@@ -39,8 +40,8 @@ public class UserGroupController {
             @PathVariable Long userId,
             @Valid @RequestBody AssignGroupsForUserRequestDto request) {
         log.info("Assigning groups {} to user {}", request.groupIds(), userId);
-        userGroupService.assignGroupsToUser(userId, request.groupIds());
-        return ResponseEntity.ok().build();
+        Long version = userGroupService.assignGroupsToUser(userId, request.groupIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
     }
 
     @GetMapping("user-id/{userId}/groups")
@@ -78,7 +79,7 @@ public class UserGroupController {
             @PathVariable Long userId,
             @Valid @RequestBody RemoveUserFromGroupsRequestDto request
     ) {
-        userGroupService.removeUserFromGroups(userId, request.groupIds());
-        return ResponseEntity.ok().build();
+        Long version = userGroupService.removeUserFromGroups(userId, request.groupIds());
+        return ResponseEntity.ok().headers(namespaceVersionHeaders(version)).build();
     }
 }
\ No newline at end of file
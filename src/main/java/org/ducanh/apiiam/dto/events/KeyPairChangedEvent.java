@@ -0,0 +1,5 @@
+package org.ducanh.apiiam.dto.events;
+
+// Published when a key pair row is updated or deleted, caches of its parsed keys drop them.
+public record KeyPairChangedEvent(Long keyPairId) {
+}
@@ -1,4 +1,10 @@
 package org.ducanh.apiiam.dto.events;
 
-public record NamespaceChangeEvent(String namespaceId) {
+import java.util.List;
+
+/**
+ * {@code changes} describes how the policy moved from {@code version - 1} to {@code version}. An
+ * empty list means the change is unknown and listeners have to rebuild the namespace.
+ */
+public record NamespaceChangeEvent(String namespaceId, Long version, List<PolicyChange> changes) {
 }
@@ -0,0 +1,5 @@
+package org.ducanh.apiiam.dto.events;
+
+// Published when metadata of a namespace such as its key pair changes, its policy and version stay.
+public record NamespaceMetadataChangedEvent(String namespaceId) {
+}
@@ -0,0 +1,69 @@
+package org.ducanh.apiiam.dto.events;
+
+import java.util.List;
+
+public record PolicyChange(Type type, String subjectId, List<String> targetIds) {
+
+    public enum Type {
+        GROUP_ROLES_ADDED,
+        GROUP_ROLES_REMOVED,
+        ROLE_PERMISSIONS_ADDED,
+        ROLE_PERMISSIONS_REMOVED,
+        ROLE_CHILDREN_ADDED,
+        ROLE_CHILDREN_REMOVED,
+        USER_GROUPS_ADDED,
+        USER_GROUPS_REMOVED,
+        USER_DELETED,
+        GROUP_DELETED,
+        ROLE_DELETED,
+        PERMISSION_DELETED
+    }
+
+    public static PolicyChange groupRolesAdded(String groupId, List<String> roleIds) {
+        return new PolicyChange(Type.GROUP_ROLES_ADDED, groupId, roleIds);
+    }
+
+    public static PolicyChange groupRolesRemoved(String groupId, List<String> roleIds) {
+        return new PolicyChange(Type.GROUP_ROLES_REMOVED, groupId, roleIds);
+    }
+
+    public static PolicyChange rolePermissionsAdded(String roleId, List<String> permissionIds) {
+        return new PolicyChange(Type.ROLE_PERMISSIONS_ADDED, roleId, permissionIds);
+    }
+
+    public static PolicyChange rolePermissionsRemoved(String roleId, List<String> permissionIds) {
+        return new PolicyChange(Type.ROLE_PERMISSIONS_REMOVED, roleId, permissionIds);
+    }
+
+    public static PolicyChange roleChildrenAdded(String roleId, List<String> childRoleIds) {
+        return new PolicyChange(Type.ROLE_CHILDREN_ADDED, roleId, childRoleIds);
+    }
+
+    public static PolicyChange roleChildrenRemoved(String roleId, List<String> childRoleIds) {
+        return new PolicyChange(Type.ROLE_CHILDREN_REMOVED, roleId, childRoleIds);
+    }
+
+    public static PolicyChange userGroupsAdded(Long userId, List<String> groupIds) {
+        return new PolicyChange(Type.USER_GROUPS_ADDED, String.valueOf(userId), groupIds);
+    }
+
+    public static PolicyChange userGroupsRemoved(Long userId, List<String> groupIds) {
+        return new PolicyChange(Type.USER_GROUPS_REMOVED, String.valueOf(userId), groupIds);
+    }
+
+    public static PolicyChange userDeleted(Long userId) {
+        return new PolicyChange(Type.USER_DELETED, String.valueOf(userId), List.of());
+    }
+
+    public static PolicyChange groupDeleted(String groupId) {
+        return new PolicyChange(Type.GROUP_DELETED, groupId, List.of());
+    }
+
+    public static PolicyChange roleDeleted(String roleId) {
+        return new PolicyChange(Type.ROLE_DELETED, roleId, List.of());
+    }
+
+    public static PolicyChange permissionDeleted(String permissionId) {
+        return new PolicyChange(Type.PERMISSION_DELETED, permissionId, List.of());
+    }
+}
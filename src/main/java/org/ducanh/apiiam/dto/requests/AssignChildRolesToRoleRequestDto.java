@@ -0,0 +1,19 @@
+package org.ducanh.apiiam.dto.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+@Schema(description = "Request DTO for making a role include other roles")
+public record AssignChildRolesToRoleRequestDto(
+        @Schema(
+                description = "List of role IDs whose permissions the role includes",
+                example = "[\"editor\", \"viewer\"]",
+                minLength = 1,
+                maxLength = 100
+        )
+        @NotEmpty(message = "Child role IDs list cannot be empty")
+        @Size(max = 100, message = "Cannot assign more than 100 child roles at once")
+        List<String> childRoleIds
+) {}
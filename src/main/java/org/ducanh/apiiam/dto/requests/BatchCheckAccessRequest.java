@@ -0,0 +1,20 @@
+package org.ducanh.apiiam.dto.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Request DTO for checking many access permissions in one call")
+public record BatchCheckAccessRequest(
+        @Schema(
+                description = "Checks to evaluate, results are returned in the same order",
+                requiredMode = Schema.RequiredMode.REQUIRED
+        )
+        @NotEmpty
+        @Size(max = 500, message = "Cannot check more than 500 accesses at once")
+        List<@Valid @NotNull CheckAccessTuple> checks
+) {}
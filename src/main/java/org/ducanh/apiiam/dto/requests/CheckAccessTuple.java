@@ -0,0 +1,36 @@
+package org.ducanh.apiiam.dto.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+@Schema(description = "One access check of a batch")
+public record CheckAccessTuple(
+        @Schema(
+                description = "Namespace ID the check is evaluated in",
+                example = "master",
+                requiredMode = Schema.RequiredMode.REQUIRED
+        )
+        @NotNull
+        @NotEmpty
+        String namespaceId,
+
+        @Schema(
+                description = "List of group IDs to check access for",
+                example = "[\"group1\", \"group2\"]",
+                requiredMode = Schema.RequiredMode.REQUIRED
+        )
+        @NotNull
+        List<@NotEmpty @NotNull String> groupId,
+
+        @Schema(
+                description = "Permission ID to check access against",
+                example = "permission1",
+                requiredMode = Schema.RequiredMode.REQUIRED
+        )
+        @NotNull
+        @NotEmpty
+        String permissionId
+) {}
@@ -0,0 +1,20 @@
+package org.ducanh.apiiam.dto.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Request DTO for listing the effective permissions of a set of groups")
+public record EffectivePermissionsRequest(
+        @Schema(
+                description = "Group IDs whose permissions are unioned",
+                example = "[\"group1\", \"group2\"]",
+                requiredMode = Schema.RequiredMode.REQUIRED
+        )
+        @NotEmpty
+        @Size(max = 1000, message = "Cannot resolve more than 1000 groups at once")
+        List<@NotEmpty @NotNull String> groupIds
+) {}
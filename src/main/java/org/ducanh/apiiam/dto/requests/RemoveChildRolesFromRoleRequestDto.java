@@ -0,0 +1,12 @@
+package org.ducanh.apiiam.dto.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Schema(description = "Request DTO for removing child roles from a role")
+public record RemoveChildRolesFromRoleRequestDto(
+        @NotEmpty(message = "Child role IDs list cannot be empty")
+        @Schema(description = "List of role IDs the role no longer includes", required = true, example = "[\"editor\"]")
+        List<String> childRoleIds
+) {}
@@ -0,0 +1,25 @@
+package org.ducanh.apiiam.dto.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+@Schema(description = "Request DTO for checking access permissions of a user through its groups")
+public record UserCheckAccessRequest(
+        @Schema(
+                description = "User ID whose groups are checked",
+                example = "1001",
+                requiredMode = Schema.RequiredMode.REQUIRED
+        )
+        @NotNull
+        Long userId,
+
+        @Schema(
+                description = "Permission ID to check access against",
+                example = "permission1",
+                requiredMode = Schema.RequiredMode.REQUIRED
+        )
+        @NotNull
+        @NotEmpty
+        String permissionId
+) {}
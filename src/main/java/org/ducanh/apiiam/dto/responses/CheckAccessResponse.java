@@ -1,6 +1,7 @@
 package org.ducanh.apiiam.dto.responses;
 
 public record CheckAccessResponse(
-        Boolean canAccess
+        Boolean canAccess,
+        Long version
 ) {
 }
@@ -0,0 +1,24 @@
+package org.ducanh.apiiam.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Exactly one of permissionIds and encodedPermissionIds is set, the latter with the COMPACT
+ * encoding: the sorted ids joined by new lines, gzipped and base64 encoded.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EffectivePermissionsResponse(
+        String namespaceId,
+        Long version,
+        Integer count,
+        List<String> permissionIds,
+        String encodedPermissionIds
+) {
+
+    public enum Encoding {
+        PLAIN,
+        COMPACT
+    }
+}
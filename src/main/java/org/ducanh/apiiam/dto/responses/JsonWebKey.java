@@ -0,0 +1,20 @@
+package org.ducanh.apiiam.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+// Public key in the RFC 7517 format, only the members of its key type are set.
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JsonWebKey(
+        String kty,
+        String kid,
+        String use,
+        String alg,
+        String n,
+        String e,
+        String crv,
+        String x,
+        String y
+) {
+}
@@ -0,0 +1,8 @@
+package org.ducanh.apiiam.dto.responses;
+
+import java.util.List;
+
+public record JsonWebKeySet(
+        List<JsonWebKey> keys
+) {
+}
@@ -0,0 +1,8 @@
+package org.ducanh.apiiam.dto.responses;
+
+// A key set serialized once, served as is until its keys change.
+public record JwksDocument(
+        byte[] body,
+        String etag
+) {
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.ducanh.apiiam.listeners.jpa.KeyPairEntityListener;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -18,10 +19,12 @@ import java.time.OffsetDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(KeyPairEntityListener.class)
 public class KeyPair {
 
+    // RSA signs with RS256, ECDSA with ES256, ES384 or ES512 following the curve, EDDSA is Ed25519
     public enum Algorithm {
-        RSA, ECDSA
+        RSA, ECDSA, EDDSA
     }
 
     public enum KeyUsage {
@@ -48,7 +51,7 @@ public class KeyPair {
 
     @Column(name = "algorithm", length = 100)
     @Enumerated(EnumType.STRING)
-    private Algorithm algorithm; // Algorithm used for the public key (e.g., "RSA", "ECDSA")
+    private Algorithm algorithm; // Algorithm used for the public key (e.g., "RSA", "ECDSA", "EDDSA")
 
     @Column(name = "key_usage", length = 50)
     @Enumerated(EnumType.STRING)
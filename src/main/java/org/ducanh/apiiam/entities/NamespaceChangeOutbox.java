@@ -0,0 +1,46 @@
+package org.ducanh.apiiam.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldNameConstants;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+
+// A change log record waiting to be relayed, payload is the event json sent under eventField.
+@Entity
+@Table(name = "namespace_change_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldNameConstants
+public class NamespaceChangeOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "namespace_change_outbox_id_seq")
+    @SequenceGenerator(
+            name = "namespace_change_outbox_id_seq",
+            sequenceName = "namespace_change_outbox_id_seq",
+            allocationSize = 100
+    )
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(name = "event_field", nullable = false)
+    private String eventField;
+
+    @Column(name = "namespace_id")
+    private String namespaceId;
+
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    @CreationTimestamp
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,43 @@
+package org.ducanh.apiiam.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldNameConstants;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+
+// roleId includes every permission of childRoleId, transitively.
+@Entity
+@Table(name = "role_inheritance")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldNameConstants
+public class RoleInheritance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_inheritance_id_seq")
+    @SequenceGenerator(
+            name = "role_inheritance_id_seq",
+            sequenceName = "role_inheritance_id_seq",
+            allocationSize = 100
+    )
+    @Column(name = "role_inheritance_id")
+    private Long roleInheritanceId;
+
+    @Column(name = "role_id")
+    private String roleId;
+
+    @Column(name = "child_role_id")
+    private String childRoleId;
+
+    @Column(name = "namespace_id")
+    private String namespaceId;
+
+    @Column(name = "assigned_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    @CreationTimestamp
+    private OffsetDateTime assignedAt;
+}
@@ -0,0 +1,4 @@
+package org.ducanh.apiiam.entities;
+
+public record RoleInheritanceIdOnly(String roleId, String childRoleId, String namespaceId) {
+}
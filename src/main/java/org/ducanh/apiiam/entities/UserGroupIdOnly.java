@@ -0,0 +1,4 @@
+package org.ducanh.apiiam.entities;
+
+public record UserGroupIdOnly(Long userId, String groupId, String namespaceId) {
+}
@@ -23,6 +23,11 @@ public enum ErrorCode {
     ROLE_ID_DUPLICATED("015", ErrorGroup.ROLE, HttpStatus.BAD_REQUEST, "RoleId is duplicated"),
     USER_ID_NOT_EXISTED("016", ErrorGroup.USER, HttpStatus.BAD_REQUEST, "UserId not exited"),
     TOO_MANY_SESSION("017", ErrorGroup.SESSION, HttpStatus.TOO_MANY_REQUESTS, "Too many session"),
+    POLICY_QUERY_NOT_SUPPORTED("018", ErrorGroup.NAMESPACE, HttpStatus.NOT_IMPLEMENTED,
+            "Policy query not supported by the storage engine"),
+    ROLE_INHERITANCE_CYCLE("019", ErrorGroup.ROLE, HttpStatus.BAD_REQUEST, "Role inheritance would create a cycle"),
+    NAMESPACE_VERSION_NOT_REACHED("020", ErrorGroup.NAMESPACE, HttpStatus.SERVICE_UNAVAILABLE,
+            "Namespace version not reached yet"),
     ;
 
     private final String code;
@@ -0,0 +1,66 @@
+package org.ducanh.apiiam.helpers;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * EdDSA over Ed25519 as defined by RFC 8037, which java-jwt does not provide. Signing and verifying
+ * rely on the Ed25519 support of the JDK, either key may be null when only the other is used.
+ */
+public class EdDsaAlgorithm extends Algorithm {
+
+    private static final String ED25519 = "Ed25519";
+
+    private final PublicKey publicKey;
+    private final PrivateKey privateKey;
+
+    public EdDsaAlgorithm(PublicKey publicKey, PrivateKey privateKey) {
+        super("EdDSA", ED25519);
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+    }
+
+    @Override
+    public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+        if (Objects.isNull(publicKey)) {
+            throw new SignatureVerificationException(this, new IllegalStateException("The public key is null"));
+        }
+        try {
+            Signature signature = Signature.getInstance(ED25519);
+            signature.initVerify(publicKey);
+            signature.update(jwt.getHeader().getBytes(StandardCharsets.UTF_8));
+            signature.update((byte) '.');
+            signature.update(jwt.getPayload().getBytes(StandardCharsets.UTF_8));
+            if (!signature.verify(Base64.getUrlDecoder().decode(jwt.getSignature()))) {
+                throw new SignatureVerificationException(this);
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException ex) {
+            throw new SignatureVerificationException(this, ex);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+        if (Objects.isNull(privateKey)) {
+            throw new SignatureGenerationException(this, new IllegalStateException("The private key is null"));
+        }
+        try {
+            Signature signature = Signature.getInstance(ED25519);
+            signature.initSign(privateKey);
+            signature.update(contentBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException ex) {
+            throw new SignatureGenerationException(this, ex);
+        }
+    }
+}
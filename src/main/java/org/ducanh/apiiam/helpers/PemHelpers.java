@@ -0,0 +1,16 @@
+package org.ducanh.apiiam.helpers;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Base64;
+
+@UtilityClass
+public class PemHelpers {
+
+    // Der bytes of a PEM block, whatever its label and line endings.
+    public static byte[] decode(String pem) {
+        String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z0-9 ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
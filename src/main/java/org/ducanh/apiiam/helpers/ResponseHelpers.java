@@ -0,0 +1,21 @@
+package org.ducanh.apiiam.helpers;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Objects;
+
+import static org.ducanh.apiiam.Constants.NAMESPACE_VERSION_HEADER;
+
+@UtilityClass
+public class ResponseHelpers {
+
+    // The committed namespace version an admin change produced, none when it changed nothing.
+    public static HttpHeaders namespaceVersionHeaders(Long version) {
+        HttpHeaders headers = new HttpHeaders();
+        if (Objects.nonNull(version)) {
+            headers.set(NAMESPACE_VERSION_HEADER, String.valueOf(version));
+        }
+        return headers;
+    }
+}
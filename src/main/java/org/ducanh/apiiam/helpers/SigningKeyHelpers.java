@@ -0,0 +1,93 @@
+package org.ducanh.apiiam.helpers;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import lombok.experimental.UtilityClass;
+import org.ducanh.apiiam.entities.KeyPair;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Parses the PEM keys of a key pair and maps them to the JWT algorithm signing with them. Public
+ * keys are X.509 SubjectPublicKeyInfo and private keys PKCS#8, whatever the label of the PEM block.
+ * EC keys sign with ES256, ES384 or ES512 following their curve, Ed25519 keys with EdDSA.
+ */
+@UtilityClass
+public class SigningKeyHelpers {
+
+    public static PublicKey publicKey(KeyPair.Algorithm algorithm, String pem) throws GeneralSecurityException {
+        return keyFactory(algorithm).generatePublic(new X509EncodedKeySpec(decode(pem)));
+    }
+
+    public static PrivateKey privateKey(KeyPair.Algorithm algorithm, String pem) throws GeneralSecurityException {
+        return keyFactory(algorithm).generatePrivate(new PKCS8EncodedKeySpec(decode(pem)));
+    }
+
+    public static Algorithm signingAlgorithm(KeyPair.Algorithm algorithm, String privateKeyPem)
+            throws GeneralSecurityException {
+        PrivateKey privateKey = privateKey(algorithm, privateKeyPem);
+        return switch (algorithm) {
+            case RSA -> Algorithm.RSA256(null, (RSAPrivateKey) privateKey);
+            case ECDSA -> switch (fieldSize((ECKey) privateKey)) {
+                case 256 -> Algorithm.ECDSA256(null, (ECPrivateKey) privateKey);
+                case 384 -> Algorithm.ECDSA384(null, (ECPrivateKey) privateKey);
+                case 521 -> Algorithm.ECDSA512(null, (ECPrivateKey) privateKey);
+                default -> throw unsupportedCurve((ECKey) privateKey);
+            };
+            case EDDSA -> new EdDsaAlgorithm(null, privateKey);
+        };
+    }
+
+    public static Algorithm verifyAlgorithm(KeyPair.Algorithm algorithm, String publicKeyPem)
+            throws GeneralSecurityException {
+        return verifyAlgorithm(algorithm, publicKey(algorithm, publicKeyPem));
+    }
+
+    public static Algorithm verifyAlgorithm(KeyPair.Algorithm algorithm, PublicKey publicKey)
+            throws GeneralSecurityException {
+        return switch (algorithm) {
+            case RSA -> Algorithm.RSA256((RSAPublicKey) publicKey, null);
+            case ECDSA -> switch (fieldSize((ECKey) publicKey)) {
+                case 256 -> Algorithm.ECDSA256((ECPublicKey) publicKey, null);
+                case 384 -> Algorithm.ECDSA384((ECPublicKey) publicKey, null);
+                case 521 -> Algorithm.ECDSA512((ECPublicKey) publicKey, null);
+                default -> throw unsupportedCurve((ECKey) publicKey);
+            };
+            case EDDSA -> new EdDsaAlgorithm(publicKey, null);
+        };
+    }
+
+    public static int fieldSize(ECKey key) {
+        return key.getParams().getCurve().getField().getFieldSize();
+    }
+
+    private static KeyFactory keyFactory(KeyPair.Algorithm algorithm) throws GeneralSecurityException {
+        return KeyFactory.getInstance(switch (algorithm) {
+            case RSA -> "RSA";
+            case ECDSA -> "EC";
+            case EDDSA -> "Ed25519";
+        });
+    }
+
+    private static byte[] decode(String pem) throws InvalidKeyException {
+        try {
+            return PemHelpers.decode(pem);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidKeyException("Key is not PEM encoded", ex);
+        }
+    }
+
+    private static InvalidKeyException unsupportedCurve(ECKey key) {
+        return new InvalidKeyException("EC curve of " + fieldSize(key) + " bits is not supported");
+    }
+}
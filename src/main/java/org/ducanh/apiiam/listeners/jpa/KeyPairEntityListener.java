@@ -0,0 +1,29 @@
+package org.ducanh.apiiam.listeners.jpa;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.KeyPairChangedEvent;
+import org.ducanh.apiiam.entities.KeyPair;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class KeyPairEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public KeyPairEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onKeyPairChanged(KeyPair keyPair) {
+        log.info("Key pair changed: {}", keyPair.getKeyPairId());
+        eventPublisher.publishEvent(new KeyPairChangedEvent(keyPair.getKeyPairId()));
+    }
+}
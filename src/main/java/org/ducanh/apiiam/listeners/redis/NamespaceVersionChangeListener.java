@@ -2,42 +2,127 @@ package org.ducanh.apiiam.listeners.redis;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.KeyPairChangedEvent;
 import org.ducanh.apiiam.dto.events.NamespaceChangeEvent;
+import org.ducanh.apiiam.dto.events.NamespaceMetadataChangedEvent;
+import org.ducanh.apiiam.services.MetadataCacheService;
 import org.ducanh.apiiam.storage.PolicyStorageManagement;
-import org.springframework.data.redis.connection.Message;
-import org.springframework.data.redis.connection.MessageListener;
-import org.springframework.data.redis.listener.ChannelTopic;
-import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import static org.ducanh.apiiam.Constants.NAMESPACE_CHANGE_TOPIC;
+import java.util.List;
 
+import static org.ducanh.apiiam.Constants.KEY_PAIR_EVENT_FIELD;
+import static org.ducanh.apiiam.Constants.NAMESPACE_CHANGE_EVENT_FIELD;
+import static org.ducanh.apiiam.Constants.NAMESPACE_CHANGE_STREAM;
+import static org.ducanh.apiiam.Constants.NAMESPACE_METADATA_EVENT_FIELD;
+
+/**
+ * Follows the namespace change log from the record that was last when this node started. The
+ * offset lives on this node, after Redis was unreachable the records published meanwhile are
+ * read from it. Namespaces whose changes were trimmed from the log, or published while the
+ * policies were loading, are caught by the periodic reconcile.
+ */
 @Component
 @Slf4j
-public class NamespaceVersionChangeListener implements MessageListener {
+public class NamespaceVersionChangeListener implements StreamListener<String, MapRecord<String, String, String>> {
+
+    private static final long READ_ERROR_BACKOFF_MILLIS = 1_000;
 
     private final ObjectMapper objectMapper;
     private final PolicyStorageManagement policyStorageManagement;
+    private final MetadataCacheService metadataCacheService;
+    private volatile RecordId lastRecordId;
 
-    public NamespaceVersionChangeListener(RedisMessageListenerContainer redisConnectionFactory,
-                                          ObjectMapper objectMapper,
-                                          PolicyStorageManagement policyStorageManagement) {
-        ChannelTopic channelTopic = new ChannelTopic(NAMESPACE_CHANGE_TOPIC);
-        redisConnectionFactory.addMessageListener(this, channelTopic);
+    public NamespaceVersionChangeListener(
+            StreamMessageListenerContainer<String, MapRecord<String, String, String>> streamMessageListenerContainer,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            PolicyStorageManagement policyStorageManagement,
+            MetadataCacheService metadataCacheService) {
         this.objectMapper = objectMapper;
         this.policyStorageManagement = policyStorageManagement;
+        this.metadataCacheService = metadataCacheService;
+        this.lastRecordId = lastRecordId(redisTemplate);
+        log.info("Following namespace change log after record: {}", lastRecordId);
+        streamMessageListenerContainer.register(StreamMessageListenerContainer.StreamReadRequest
+                .builder(StreamOffset.create(NAMESPACE_CHANGE_STREAM, ReadOffset.from(lastRecordId)))
+                .cancelOnError(throwable -> false)
+                .errorHandler(this::onReadError)
+                .build(), this);
+        streamMessageListenerContainer.start();
+    }
+
+    private static RecordId lastRecordId(StringRedisTemplate redisTemplate) {
+        List<MapRecord<String, Object, Object>> last = redisTemplate.opsForStream()
+                .reverseRange(NAMESPACE_CHANGE_STREAM, Range.unbounded(), Limit.limit().count(1));
+        return last == null || last.isEmpty() ? RecordId.of("0-0") : last.get(0).getId();
     }
 
     @Override
-    public void onMessage(Message message, byte[] pattern) {
-        var rawBody = new String(message.getBody());
-        log.info("Received namespace version change rawMessage: {}", rawBody);
+    public void onMessage(MapRecord<String, String, String> record) {
+        if (!record.getValue().containsKey(NAMESPACE_CHANGE_EVENT_FIELD)) {
+            onMetadataMessage(record);
+            return;
+        }
+        var rawBody = record.getValue().get(NAMESPACE_CHANGE_EVENT_FIELD);
+        log.info("Received namespace version change record: {}, rawMessage: {}", record.getId(), rawBody);
         try {
             NamespaceChangeEvent event = objectMapper.readValue(rawBody, NamespaceChangeEvent.class);
             log.info("Received namespace version change event: {}", event);
-            policyStorageManagement.reloadPolicy(event.namespaceId());
+            policyStorageManagement.applyChanges(event);
         } catch (Exception ex) {
-            throw new RuntimeException(ex);
+            // the namespace is left behind until the next change of it or the next reconcile
+            log.error("Failed applying namespace change record: {}", record.getId(), ex);
+        }
+        lastRecordId = record.getId();
+    }
+
+    private void onMetadataMessage(MapRecord<String, String, String> record) {
+        var rawNamespace = record.getValue().get(NAMESPACE_METADATA_EVENT_FIELD);
+        var rawKeyPair = record.getValue().get(KEY_PAIR_EVENT_FIELD);
+        log.info("Received metadata change record: {}, namespace: {}, key pair: {}", record.getId(),
+                rawNamespace, rawKeyPair);
+        try {
+            if (rawNamespace != null) {
+                NamespaceMetadataChangedEvent event = objectMapper.readValue(rawNamespace,
+                        NamespaceMetadataChangedEvent.class);
+                metadataCacheService.evictNamespace(event.namespaceId());
+            } else if (rawKeyPair != null) {
+                KeyPairChangedEvent event = objectMapper.readValue(rawKeyPair, KeyPairChangedEvent.class);
+                metadataCacheService.evictKeyPair(event.keyPairId());
+            }
+        } catch (Exception ex) {
+            // the cached metadata expires with the cache ttl
+            log.error("Failed applying metadata change record: {}", record.getId(), ex);
+        }
+        lastRecordId = record.getId();
+    }
+
+    private void onReadError(Throwable throwable) {
+        log.error("Failed reading namespace change log after record: {}, retrying", lastRecordId, throwable);
+        try {
+            // runs on the polling thread, keeps it from spinning while Redis is unreachable
+            Thread.sleep(READ_ERROR_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.policy-change-log.reconcile-interval}")
+    public void reconcile() {
+        int behind = policyStorageManagement.reconcile();
+        if (behind > 0) {
+            log.info("Reconciled namespace change log after record: {}, namespaces behind: {}", lastRecordId, behind);
         }
     }
 }
@@ -1,13 +1,19 @@
 package org.ducanh.apiiam.repositories;
 
 
+import jakarta.persistence.QueryHint;
+import org.ducanh.apiiam.Constants;
 import org.ducanh.apiiam.entities.GroupRole;
 import org.ducanh.apiiam.entities.GroupRoleIdOnly;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.hibernate.jpa.HibernateHints;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface GroupRoleRepository extends JpaRepository<GroupRole, Long> {
@@ -28,11 +34,15 @@ public interface GroupRoleRepository extends JpaRepository<GroupRole, Long> {
         """)
     List<String> findExistedRoleId(String groupId, String namespaceId, List<String> roleIds);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.POLICY_ROWS_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
         SELECT new org.ducanh.apiiam.entities.GroupRoleIdOnly(gr.groupId, gr.roleId, gr.namespaceId)
             FROM GroupRole gr
                 WHERE gr.namespaceId = :namespaceId
     """)
-    List<GroupRoleIdOnly> findAllByNamespaceId(String namespaceId);
+    Stream<GroupRoleIdOnly> streamAllByNamespaceId(String namespaceId);
 
 }
@@ -1,11 +1,20 @@
 package org.ducanh.apiiam.repositories;
 
 import org.ducanh.apiiam.entities.KeyPair;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
+import static org.ducanh.apiiam.Constants.KEY_PAIR_CACHE;
+
 @Repository
 public interface KeyPairRepository extends JpaRepository<KeyPair, Long> {
 
+    // Near cached, the same instance is returned until the key pair changes or the entry expires.
+    @Cacheable(cacheNames = KEY_PAIR_CACHE, unless = "#result == null")
     KeyPair findKeyPairsByKeyPairId(Long keyPairId);
+
+    List<KeyPair> findAllByKeyUsageAndKeyStatus(KeyPair.KeyUsage keyUsage, KeyPair.KeyStatus keyStatus);
 }
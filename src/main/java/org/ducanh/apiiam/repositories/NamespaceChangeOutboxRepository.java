@@ -0,0 +1,24 @@
+package org.ducanh.apiiam.repositories;
+
+import org.ducanh.apiiam.entities.NamespaceChangeOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NamespaceChangeOutboxRepository extends JpaRepository<NamespaceChangeOutbox, Long> {
+
+    // Serializes relays across nodes until the end of the transaction.
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:key)) AS relay_lock", nativeQuery = true)
+    Integer lockRelay(long key);
+
+    // Versions of one namespace commit in order, the namespace row is locked while bumping it.
+    @Query(value = """
+        SELECT * FROM namespace_change_outbox
+                ORDER BY namespace_id, version
+                        LIMIT :limit
+        """, nativeQuery = true)
+    List<NamespaceChangeOutbox> findRelayBatch(int limit);
+}
@@ -1,17 +1,34 @@
 package org.ducanh.apiiam.repositories;
 
+import jakarta.persistence.LockModeType;
 import org.ducanh.apiiam.entities.Namespace;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
+import static org.ducanh.apiiam.Constants.NAMESPACE_EXISTS_CACHE;
+import static org.ducanh.apiiam.Constants.NAMESPACE_KEY_PAIR_ID_CACHE;
+
 @Repository
 public interface NamespaceRepository extends JpaRepository<Namespace, String>, JpaSpecificationExecutor<Namespace> {
 
     Namespace findByNamespaceId(String namespaceId);
 
+    // Near cached, a namespace not found yet may be created any time so only hits are kept.
+    @Override
+    @Cacheable(cacheNames = NAMESPACE_EXISTS_CACHE, unless = "!#result")
+    boolean existsById(String namespaceId);
+
+    @Cacheable(cacheNames = NAMESPACE_KEY_PAIR_ID_CACHE, unless = "#result == null")
+    @Query("SELECT n.keyPairId FROM Namespace n WHERE n.namespaceId = :namespaceId")
+    Long findKeyPairIdByNamespaceId(String namespaceId);
+
     default void existOrThrowById(String namespaceId) {
         if (!existsById(namespaceId)) {
             throw new RuntimeException("Namespace with id " + namespaceId + " does not exist");
@@ -21,9 +38,19 @@ public interface NamespaceRepository extends JpaRepository<Namespace, String>, J
     @Modifying
     @Query("""
         UPDATE Namespace n
-                SET n.version = n.version+ :increment
+                SET n.version = COALESCE(n.version, 0) + :increment
                         WHERE n.namespaceId = :namespaceId
         """)
     int increaseNamespaceVersion(String namespaceId, Long increment);
 
+    @Query("""
+        SELECT n.version FROM Namespace n WHERE n.namespaceId = :namespaceId
+        """)
+    Long findVersionByNamespaceId(String namespaceId);
+
+    // Serializes writers of one namespace until the end of the transaction.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Namespace n WHERE n.namespaceId = :namespaceId")
+    Optional<Namespace> lockByNamespaceId(String namespaceId);
+
 }
@@ -0,0 +1,56 @@
+package org.ducanh.apiiam.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.ducanh.apiiam.Constants;
+import org.ducanh.apiiam.entities.RoleInheritance;
+import org.ducanh.apiiam.entities.RoleInheritanceIdOnly;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface RoleInheritanceRepository extends JpaRepository<RoleInheritance, Long> {
+
+    @Query("""
+        SELECT ri.childRoleId FROM RoleInheritance ri
+                WHERE ri.namespaceId = :namespaceId AND ri.roleId = :roleId AND ri.childRoleId IN (:childRoleIds)
+        """)
+    List<String> findExistedChildRoleIds(String namespaceId, String roleId, List<String> childRoleIds);
+
+    @Modifying
+    @Query("""
+        DELETE FROM RoleInheritance ri
+                WHERE ri.namespaceId = :namespaceId AND ri.roleId = :roleId AND ri.childRoleId IN :childRoleIds
+        """)
+    void deleteAllByNamespaceIdAndRoleIdAndChildRoleIdIn(String namespaceId, String roleId, List<String> childRoleIds);
+
+    @Modifying
+    void deleteAllByRoleIdAndNamespaceId(String roleId, String namespaceId);
+
+    @Modifying
+    void deleteAllByChildRoleIdAndNamespaceId(String childRoleId, String namespaceId);
+
+    @Query("""
+        SELECT new org.ducanh.apiiam.entities.RoleInheritanceIdOnly(ri.roleId, ri.childRoleId, ri.namespaceId)
+            FROM RoleInheritance ri
+                WHERE ri.namespaceId = :namespaceId
+    """)
+    List<RoleInheritanceIdOnly> findAllByNamespaceId(String namespaceId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.POLICY_ROWS_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new org.ducanh.apiiam.entities.RoleInheritanceIdOnly(ri.roleId, ri.childRoleId, ri.namespaceId)
+            FROM RoleInheritance ri
+                WHERE ri.namespaceId = :namespaceId
+    """)
+    Stream<RoleInheritanceIdOnly> streamAllByNamespaceId(String namespaceId);
+}
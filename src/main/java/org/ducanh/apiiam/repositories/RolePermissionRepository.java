@@ -1,15 +1,21 @@
 package org.ducanh.apiiam.repositories;
 
 import feign.Param;
+import jakarta.persistence.QueryHint;
+import org.ducanh.apiiam.Constants;
 import org.ducanh.apiiam.entities.GroupRoleIdOnly;
 import org.ducanh.apiiam.entities.RolePermission;
 import org.ducanh.apiiam.entities.RolePermissionIdOnly;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import org.hibernate.jpa.HibernateHints;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface RolePermissionRepository extends JpaRepository<RolePermission, Long> {
@@ -35,10 +41,14 @@ public interface RolePermissionRepository extends JpaRepository<RolePermission,
 
     List<RolePermission> findAllByNamespaceIdAndRoleId(String namespaceId, String roleId);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.POLICY_ROWS_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
         SELECT new org.ducanh.apiiam.entities.RolePermissionIdOnly(rp.roleId, rp.permissionId, rp.namespaceId)
             FROM RolePermission rp
                 WHERE rp.namespaceId = :namespaceId
     """)
-    List<RolePermissionIdOnly> findAllByNamespaceId(String namespaceId);
+    Stream<RolePermissionIdOnly> streamAllByNamespaceId(String namespaceId);
 }
@@ -7,6 +7,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
+
 @Repository
 public interface SessionRepository extends JpaRepository<Session, Long> {
 
@@ -17,6 +20,14 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
 
     Session findSessionByRefreshTokenId(String refreshTokenId);
 
+    // Keys that signed the tokens still in use in a namespace, rotated out ones included.
+    @Query("""
+        select distinct s.kid from Session s
+            where s.namespaceId = :namespaceId AND s.active = true AND s.revoked = false
+                AND s.refreshTokenExpiredAt > :now
+        """)
+    List<Long> findKidsOfLiveSessions(String namespaceId, OffsetDateTime now);
+
     @Modifying
     @Query("""
         update Session s set s.active = false where  s.userId = :userId
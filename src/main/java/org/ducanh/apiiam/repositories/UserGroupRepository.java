@@ -1,15 +1,21 @@
 package org.ducanh.apiiam.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.ducanh.apiiam.Constants;
 import org.ducanh.apiiam.entities.UserGroup;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.hibernate.jpa.HibernateHints;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserGroupRepository extends JpaRepository<UserGroup, Long>, JpaSpecificationExecutor<UserGroup> {
@@ -34,4 +40,15 @@ public interface UserGroupRepository extends JpaRepository<UserGroup, Long>, Jpa
     void deleteAllByGroupIdAndNamespaceId(String groupId, String namespaceId);
 
     List<UserGroup> findAllByUserId(Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.POLICY_ROWS_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new org.ducanh.apiiam.entities.UserGroupIdOnly(ug.userId, ug.groupId, ug.namespaceId)
+            FROM UserGroup ug, User u
+                WHERE u.userId = ug.userId AND ug.namespaceId = :namespaceId AND COALESCE(u.deleted, false) = false
+    """)
+    Stream<UserGroupIdOnly> streamAllByNamespaceId(String namespaceId);
 }
@@ -1,39 +1,154 @@
 package org.ducanh.apiiam.services;
 
+import org.ducanh.apiiam.dto.requests.BatchCheckAccessRequest;
 import org.ducanh.apiiam.dto.requests.CheckAccessRequest;
+import org.ducanh.apiiam.dto.requests.EffectivePermissionsRequest;
+import org.ducanh.apiiam.dto.requests.UserCheckAccessRequest;
 import org.ducanh.apiiam.dto.responses.CheckAccessResponse;
+import org.ducanh.apiiam.dto.responses.EffectivePermissionsResponse;
 import org.ducanh.apiiam.exceptions.CommonException;
 import org.ducanh.apiiam.exceptions.ErrorCode;
+import org.ducanh.apiiam.storage.IdPage;
+import org.ducanh.apiiam.storage.PolicyMetrics;
 import org.ducanh.apiiam.storage.PolicyStorage;
 import org.ducanh.apiiam.storage.PolicyStorageManagement;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class AccessService {
 
     private final PolicyStorageManagement policyStorageManagement;
+    private final PolicyMetrics policyMetrics;
+    private final Duration maxVersionWait;
 
     @Autowired
-    public AccessService(final PolicyStorageManagement policyStorageManagement) {
+    public AccessService(final PolicyStorageManagement policyStorageManagement,
+                         final PolicyMetrics policyMetrics,
+                         @Value("${app.policy-storage.max-version-wait}") Duration maxVersionWait) {
         this.policyStorageManagement = policyStorageManagement;
+        this.policyMetrics = policyMetrics;
+        this.maxVersionWait = maxVersionWait;
     }
 
     public CheckAccessResponse checkAccess(
             CheckAccessRequest checkAccessRequest,
-            String namespaceId
+            String namespaceId,
+            Long minVersion
     ) {
-        PolicyStorage policyStorage = policyStorageManagement.getPolicyStorage(namespaceId);
+        long start = System.nanoTime();
+        PolicyStorage policyStorage = getPolicyStorage(namespaceId, minVersion);
+        boolean allowed = policyStorage.checkAccess(checkAccessRequest.groupId(), checkAccessRequest.permissionId());
+        policyMetrics.recordCheck(namespaceId, allowed, System.nanoTime() - start);
+        return new CheckAccessResponse(allowed, policyStorage.getVersion());
+    }
+
+    public CheckAccessResponse checkAccess(UserCheckAccessRequest userCheckAccessRequest, String namespaceId,
+                                           Long minVersion) {
+        long start = System.nanoTime();
+        PolicyStorage policyStorage = getPolicyStorage(namespaceId, minVersion);
+        boolean allowed = policyStorage.checkUserAccess(userCheckAccessRequest.userId(),
+                userCheckAccessRequest.permissionId());
+        policyMetrics.recordCheck(namespaceId, allowed, System.nanoTime() - start);
+        return new CheckAccessResponse(allowed, policyStorage.getVersion());
+    }
+
+    public List<CheckAccessResponse> checkAccess(BatchCheckAccessRequest batchCheckAccessRequest) {
+        // Every namespace is resolved once, so all checks of a namespace see the same version
+        Map<String, PolicyStorage> policyStorages = new HashMap<>();
+        return batchCheckAccessRequest.checks().stream()
+                .map(check -> {
+                    long start = System.nanoTime();
+                    PolicyStorage policyStorage = policyStorages.computeIfAbsent(check.namespaceId(),
+                            this::getPolicyStorage);
+                    boolean allowed = policyStorage.checkAccess(check.groupId(), check.permissionId());
+                    policyMetrics.recordCheck(check.namespaceId(), allowed, System.nanoTime() - start);
+                    return new CheckAccessResponse(allowed, policyStorage.getVersion());
+                })
+                .toList();
+    }
+
+    public EffectivePermissionsResponse getEffectivePermissions(EffectivePermissionsRequest request,
+                                                                EffectivePermissionsResponse.Encoding encoding,
+                                                                String namespaceId, Long minVersion) {
+        // ids and version come from the same snapshot
+        PolicyStorage policyStorage = getPolicyStorage(namespaceId, minVersion);
+        List<String> permissionIds = policyStorage.findEffectivePermissions(request.groupIds());
+        if (encoding == EffectivePermissionsResponse.Encoding.COMPACT) {
+            return new EffectivePermissionsResponse(namespaceId, policyStorage.getVersion(), permissionIds.size(),
+                    null, compact(permissionIds));
+        }
+        return new EffectivePermissionsResponse(namespaceId, policyStorage.getVersion(), permissionIds.size(),
+                permissionIds, null);
+    }
+
+    private static String compact(List<String> ids) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(String.join("\n", ids).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    public Page<String> getGroupsGranting(String namespaceId, String permissionId, Pageable pageable) {
+        PolicyStorage policyStorage = getPolicyStorage(namespaceId);
+        return toPage(policyStorage.findGroupsGranting(permissionId, (int) pageable.getOffset(), pageable.getPageSize()),
+                pageable, namespaceId);
+    }
+
+    public Page<String> getRolesGranting(String namespaceId, String permissionId, Pageable pageable) {
+        PolicyStorage policyStorage = getPolicyStorage(namespaceId);
+        return toPage(policyStorage.findRolesGranting(permissionId, (int) pageable.getOffset(), pageable.getPageSize()),
+                pageable, namespaceId);
+    }
+
+    private Page<String> toPage(Optional<IdPage> idPage, Pageable pageable, String namespaceId) {
+        return idPage.map(page -> new PageImpl<>(page.ids(), pageable, page.total()))
+                .orElseThrow(() -> new CommonException(ErrorCode.POLICY_QUERY_NOT_SUPPORTED,
+                        "NamespaceId: {0} storage engine does not index this query", namespaceId));
+    }
+
+    // Never answers from a version older than minVersion, waits a bounded time for it instead.
+    private PolicyStorage getPolicyStorage(String namespaceId, Long minVersion) {
+        if (Objects.isNull(minVersion)) {
+            return getPolicyStorage(namespaceId);
+        }
+        PolicyStorage policyStorage = policyStorageManagement.getPolicyStorage(namespaceId, minVersion, maxVersionWait);
         if (Objects.isNull(policyStorage)) {
             throw new CommonException(ErrorCode.NAMESPACE_NOT_EXISTED, "NamespaceId: {0} not existed", namespaceId);
         }
-        for (String groupId : checkAccessRequest.groupId()) {
-            if (policyStorage.checkAccess(groupId, checkAccessRequest.permissionId())) {
-                return new CheckAccessResponse(true);
-            }
+        if (policyStorage.getVersion() < minVersion) {
+            throw new CommonException(ErrorCode.NAMESPACE_VERSION_NOT_REACHED,
+                    "NamespaceId: {0} version: {1} not reached, current version: {2}",
+                    namespaceId, minVersion, policyStorage.getVersion());
+        }
+        return policyStorage;
+    }
+
+    private PolicyStorage getPolicyStorage(String namespaceId) {
+        PolicyStorage policyStorage = policyStorageManagement.getPolicyStorage(namespaceId);
+        if (Objects.isNull(policyStorage)) {
+            throw new CommonException(ErrorCode.NAMESPACE_NOT_EXISTED, "NamespaceId: {0} not existed", namespaceId);
         }
-        return new CheckAccessResponse(false);
+        return policyStorage;
     }
 }
@@ -1,6 +1,7 @@
 package org.ducanh.apiiam.services;
 
 import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.responses.GroupResponseDto;
 import org.ducanh.apiiam.dto.responses.GroupRoleResponseDto;
 import org.ducanh.apiiam.entities.Group;
@@ -33,18 +34,21 @@ public class GroupRoleService {
     private final GroupRoleRepository groupRoleRepository;
     private final GroupRepository groupRepository;
     private final RoleRepository roleRepository;
+    private final NamespaceService namespaceService;
 
     public GroupRoleService(
             GroupRoleRepository groupRoleRepository,
             GroupRepository groupRepository,
-            RoleRepository roleRepository
+            RoleRepository roleRepository,
+            NamespaceService namespaceService
     ) {
         this.groupRoleRepository = groupRoleRepository;
         this.groupRepository = groupRepository;
         this.roleRepository = roleRepository;
+        this.namespaceService = namespaceService;
     }
 
-    public void assignRolesToGroup(String namespaceId, String groupId, List<String> roleIds) {
+    public Long assignRolesToGroup(String namespaceId, String groupId, List<String> roleIds) {
         Group group = groupRepository.findGroupByNamespaceIdAndGroupId(namespaceId, groupId)
                 .orElseThrow(() -> new CommonException(ErrorCode.GROUP_NOT_FOUND,
                         "GroupId {0}, namespace: {1} not found", groupId, namespaceId));
@@ -70,14 +74,18 @@ public class GroupRoleService {
                 .toList();
 
         groupRoleRepository.saveAll(newGroupRoles);
+        return namespaceService.increaseNamespaceVersion(namespaceId,
+                List.of(PolicyChange.groupRolesAdded(groupId, roleIds)));
     }
 
-    public void removeRolesFromGroup(String namespaceId, String groupId, List<String> roleIds) {
+    public Long removeRolesFromGroup(String namespaceId, String groupId, List<String> roleIds) {
         if (!groupRepository.existsByGroupIdAndNamespaceId(groupId, namespaceId)) {
             throw new CommonException(ErrorCode.GROUP_NOT_FOUND,
                     "GroupId {0}, namespace: {1} not found", groupId, namespaceId);
         }
         groupRoleRepository.deleteAllByNamespaceIdAndGroupIdAndRoleIdIn(namespaceId, groupId, roleIds);
+        return namespaceService.increaseNamespaceVersion(namespaceId,
+                List.of(PolicyChange.groupRolesRemoved(groupId, roleIds)));
     }
 
     public Page<GroupRoleResponseDto> getGroupRoles(
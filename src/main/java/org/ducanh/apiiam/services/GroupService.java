@@ -2,6 +2,7 @@ package org.ducanh.apiiam.services;
 
 import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.requests.CreateGroupRequestDto;
 import org.ducanh.apiiam.dto.requests.UpdateGroupRequestDto;
 import org.ducanh.apiiam.dto.responses.GroupResponseDto;
@@ -29,14 +30,17 @@ public class GroupService {
     private final GroupRepository groupRepository;
     private final UserGroupRepository userGroupRepository;
     private final GroupRoleRepository groupRoleRepository;
+    private final NamespaceService namespaceService;
 
     @Autowired
     public GroupService(GroupRepository groupRepository,
                         UserGroupRepository userGroupRepository,
-                        GroupRoleRepository groupRoleRepository) {
+                        GroupRoleRepository groupRoleRepository,
+                        NamespaceService namespaceService) {
         this.groupRepository = groupRepository;
         this.userGroupRepository = userGroupRepository;
         this.groupRoleRepository = groupRoleRepository;
+        this.namespaceService = namespaceService;
     }
 
     public GroupResponseDto createGroup(String namespaceId, CreateGroupRequestDto request) {
@@ -76,13 +80,14 @@ public class GroupService {
     }
 
     @Transactional
-    public void deleteGroup(String namespaceId, String groupId) {
+    public Long deleteGroup(String namespaceId, String groupId) {
         Group group = groupRepository.findGroupByNamespaceIdAndGroupId(namespaceId, groupId)
                 .orElseThrow(() -> new CommonException(ErrorCode.GROUP_NOT_FOUND,
                         "GroupId {0}, namespace: {1} not found", groupId, namespaceId));
         groupRoleRepository.deleteAllByGroupIdAndNamespaceId(groupId, namespaceId);
         userGroupRepository.deleteAllByGroupIdAndNamespaceId(groupId, namespaceId);
         groupRepository.delete(group);
+        return namespaceService.increaseNamespaceVersion(namespaceId, List.of(PolicyChange.groupDeleted(groupId)));
     }
 
     private Specification<Group> buildSearchCriteria(String namespaceId, String groupName) {
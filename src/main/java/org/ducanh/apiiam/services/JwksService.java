@@ -0,0 +1,177 @@
+package org.ducanh.apiiam.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.responses.JsonWebKey;
+import org.ducanh.apiiam.dto.responses.JsonWebKeySet;
+import org.ducanh.apiiam.dto.responses.JwksDocument;
+import org.ducanh.apiiam.entities.KeyPair;
+import org.ducanh.apiiam.exceptions.CommonException;
+import org.ducanh.apiiam.helpers.SigningKeyHelpers;
+import org.ducanh.apiiam.helpers.TimeHelpers;
+import org.ducanh.apiiam.repositories.KeyPairRepository;
+import org.ducanh.apiiam.repositories.NamespaceRepository;
+import org.ducanh.apiiam.repositories.SessionRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.ducanh.apiiam.Constants.GLOBAL_JWKS_KEY;
+import static org.ducanh.apiiam.Constants.JWKS_CACHE;
+import static org.ducanh.apiiam.exceptions.ErrorCode.NAMESPACE_NOT_EXISTED;
+import static org.ducanh.apiiam.exceptions.ErrorCode.UNKNOWN_ERROR;
+
+/**
+ * Publishes the public keys verifying the issued tokens. A key pair is published while it is an
+ * active RSA, EC or Ed25519 signature key that has not expired, the key sets are serialized once
+ * and near cached until a key pair or the key pair of a namespace changes. The etag is a digest of
+ * the serialized set, so it moves with every key added, removed or re-versioned.
+ */
+@Service
+@Slf4j
+public class JwksService {
+
+    private static final int ETAG_BYTES = 16;
+    private static final int ED25519_KEY_BYTES = 32;
+
+    private final KeyPairRepository keyPairRepository;
+    private final NamespaceRepository namespaceRepository;
+    private final SessionRepository sessionRepository;
+    private final TimeHelpers timeHelpers;
+    private final ObjectMapper objectMapper;
+
+    public JwksService(KeyPairRepository keyPairRepository,
+                       NamespaceRepository namespaceRepository,
+                       SessionRepository sessionRepository,
+                       TimeHelpers timeHelpers,
+                       ObjectMapper objectMapper) {
+        this.keyPairRepository = keyPairRepository;
+        this.namespaceRepository = namespaceRepository;
+        this.sessionRepository = sessionRepository;
+        this.timeHelpers = timeHelpers;
+        this.objectMapper = objectMapper;
+    }
+
+    @Cacheable(cacheNames = JWKS_CACHE, key = "'" + GLOBAL_JWKS_KEY + "'")
+    public JwksDocument getJwks() {
+        return toDocument(keyPairRepository.findAllByKeyUsageAndKeyStatus(KeyPair.KeyUsage.SIGNATURE,
+                KeyPair.KeyStatus.ACTIVE));
+    }
+
+    // The current key pair of the namespace, and the rotated out ones its live sessions were signed with.
+    @Cacheable(cacheNames = JWKS_CACHE)
+    public JwksDocument getJwks(String namespaceId) {
+        Long keyPairId = namespaceRepository.findKeyPairIdByNamespaceId(namespaceId);
+        if (Objects.isNull(keyPairId)) {
+            throw new CommonException(NAMESPACE_NOT_EXISTED, "NamespaceId: {0} not exist", namespaceId);
+        }
+        Set<Long> keyPairIds = new TreeSet<>(sessionRepository.findKidsOfLiveSessions(namespaceId,
+                timeHelpers.currentTime()));
+        keyPairIds.remove(null);
+        keyPairIds.add(keyPairId);
+        return toDocument(keyPairRepository.findAllById(keyPairIds));
+    }
+
+    private JwksDocument toDocument(Collection<KeyPair> keyPairs) {
+        OffsetDateTime now = timeHelpers.currentTime();
+        List<JsonWebKey> keys = keyPairs.stream()
+                .filter(keyPair -> isPublished(keyPair, now))
+                .sorted(Comparator.comparing(KeyPair::getKeyPairId))
+                .map(this::toJsonWebKey)
+                .flatMap(Optional::stream)
+                .toList();
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(new JsonWebKeySet(keys));
+            return new JwksDocument(body, etag(body));
+        } catch (JsonProcessingException ex) {
+            throw new CommonException(UNKNOWN_ERROR, "Serialize key set failed").setCause(ex);
+        }
+    }
+
+    private static boolean isPublished(KeyPair keyPair, OffsetDateTime now) {
+        return keyPair.getKeyUsage() == KeyPair.KeyUsage.SIGNATURE
+                && keyPair.getKeyStatus() == KeyPair.KeyStatus.ACTIVE
+                && (Objects.isNull(keyPair.getExpiryDate()) || keyPair.getExpiryDate().isAfter(now));
+    }
+
+    // A key pair that can not be parsed is left out, the others stay verifiable.
+    private Optional<JsonWebKey> toJsonWebKey(KeyPair keyPair) {
+        try {
+            PublicKey publicKey = SigningKeyHelpers.publicKey(keyPair.getAlgorithm(), keyPair.getPublicKey());
+            JsonWebKey.JsonWebKeyBuilder jsonWebKey = JsonWebKey.builder()
+                    .kid(String.valueOf(keyPair.getKeyPairId()))
+                    .use("sig")
+                    .alg(SigningKeyHelpers.verifyAlgorithm(keyPair.getAlgorithm(), publicKey).getName());
+            return Optional.of(switch (publicKey) {
+                case RSAPublicKey rsa -> jsonWebKey.kty("RSA")
+                        .n(base64Url(rsa.getModulus(), 0))
+                        .e(base64Url(rsa.getPublicExponent(), 0))
+                        .build();
+                case ECPublicKey ec -> {
+                    int fieldSize = SigningKeyHelpers.fieldSize(ec);
+                    int length = (fieldSize + 7) / 8;
+                    yield jsonWebKey.kty("EC")
+                            .crv("P-" + fieldSize)
+                            .x(base64Url(ec.getW().getAffineX(), length))
+                            .y(base64Url(ec.getW().getAffineY(), length))
+                            .build();
+                }
+                // the raw key ends the X.509 encoding
+                case EdECPublicKey ed -> {
+                    byte[] encoded = ed.getEncoded();
+                    yield jsonWebKey.kty("OKP")
+                            .crv("Ed25519")
+                            .x(Base64.getUrlEncoder().withoutPadding().encodeToString(
+                                    Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_BYTES, encoded.length)))
+                            .build();
+                }
+                default -> throw new InvalidKeyException("Unsupported public key: " + publicKey.getAlgorithm());
+            });
+        } catch (Exception ex) {
+            log.warn("Skip publishing key pair: {}, parsing its public key failed", keyPair.getKeyPairId(), ex);
+            return Optional.empty();
+        }
+    }
+
+    // Unsigned big endian, left padded to length when it is not 0.
+    private static String base64Url(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, ETAG_BYTES);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new CommonException(UNKNOWN_ERROR, "Digest key set failed").setCause(ex);
+        }
+    }
+}
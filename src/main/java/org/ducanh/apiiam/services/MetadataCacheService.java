@@ -0,0 +1,123 @@
+package org.ducanh.apiiam.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.KeyPairChangedEvent;
+import org.ducanh.apiiam.dto.events.NamespaceMetadataChangedEvent;
+import org.ducanh.apiiam.entities.NamespaceChangeOutbox;
+import org.ducanh.apiiam.exceptions.CommonException;
+import org.ducanh.apiiam.repositories.NamespaceChangeOutboxRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+
+import static org.ducanh.apiiam.Constants.JWKS_CACHE;
+import static org.ducanh.apiiam.Constants.KEY_PAIR_CACHE;
+import static org.ducanh.apiiam.Constants.KEY_PAIR_EVENT_FIELD;
+import static org.ducanh.apiiam.Constants.NAMESPACE_EXISTS_CACHE;
+import static org.ducanh.apiiam.Constants.NAMESPACE_KEY_PAIR_ID_CACHE;
+import static org.ducanh.apiiam.Constants.NAMESPACE_METADATA_EVENT_FIELD;
+import static org.ducanh.apiiam.exceptions.ErrorCode.UNKNOWN_ERROR;
+
+/**
+ * Evicts the near cached namespace and key pair metadata. Changes of it are written to the outbox
+ * as metadata records and relayed to the change log, every node evicts them from there without
+ * moving the policy version. The node making a change evicts right after its commit as well.
+ */
+@Service
+@Slf4j
+public class MetadataCacheService {
+
+    private final CacheManager cacheManager;
+    private final NamespaceChangeOutboxRepository outboxRepository;
+    private final NamespaceChangeOutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final JwtTokenService jwtTokenService;
+    private final TransactionTemplate newTransaction;
+
+    public MetadataCacheService(CacheManager cacheManager,
+                                NamespaceChangeOutboxRepository outboxRepository,
+                                NamespaceChangeOutboxRelay outboxRelay,
+                                ObjectMapper objectMapper,
+                                JwtTokenService jwtTokenService,
+                                PlatformTransactionManager transactionManager) {
+        this.cacheManager = cacheManager;
+        this.outboxRepository = outboxRepository;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+        this.jwtTokenService = jwtTokenService;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Written in the transaction of the caller, so the record commits with the change.
+    public void recordNamespaceMetadataChange(String namespaceId) {
+        record(NAMESPACE_METADATA_EVENT_FIELD, namespaceId, new NamespaceMetadataChangedEvent(namespaceId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onKeyPairChanged(KeyPairChangedEvent event) {
+        evictKeyPair(event.keyPairId());
+        // key pairs change in jpa flushes, often while committing, so their record follows in a
+        // transaction of its own, a node stopping in between leaves the others on the cache ttl
+        try {
+            newTransaction.executeWithoutResult(status -> record(KEY_PAIR_EVENT_FIELD, null, event));
+        } catch (Exception ex) {
+            log.error("Failed recording change of key pair: {}", event.keyPairId(), ex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNamespaceMetadataChanged(NamespaceMetadataChangedEvent event) {
+        evictNamespace(event.namespaceId());
+    }
+
+    public void evictNamespace(String namespaceId) {
+        evict(NAMESPACE_EXISTS_CACHE, namespaceId);
+        evict(NAMESPACE_KEY_PAIR_ID_CACHE, namespaceId);
+        evict(JWKS_CACHE, namespaceId);
+    }
+
+    public void evictKeyPair(Long keyPairId) {
+        evict(KEY_PAIR_CACHE, keyPairId);
+        // any key set may hold the key pair
+        clear(JWKS_CACHE);
+        jwtTokenService.evictKeyMaterial(keyPairId);
+    }
+
+    private void record(String eventField, String namespaceId, Object event) {
+        try {
+            outboxRepository.save(NamespaceChangeOutbox.builder()
+                    .eventField(eventField)
+                    .namespaceId(namespaceId)
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build());
+        } catch (JsonProcessingException ex) {
+            throw new CommonException(UNKNOWN_ERROR, "Serialize metadata change event failed").setCause(ex);
+        }
+        outboxRelay.requestRelayAfterCommit();
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (Objects.nonNull(cache)) {
+            log.info("Evicting near cache: {}, key: {}", cacheName, key);
+            cache.evict(key);
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (Objects.nonNull(cache)) {
+            log.info("Clearing near cache: {}", cacheName);
+            cache.clear();
+        }
+    }
+}
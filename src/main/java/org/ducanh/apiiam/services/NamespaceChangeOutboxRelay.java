@@ -0,0 +1,144 @@
+package org.ducanh.apiiam.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.Constants;
+import org.ducanh.apiiam.entities.NamespaceChangeOutbox;
+import org.ducanh.apiiam.repositories.NamespaceChangeOutboxRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.ducanh.apiiam.Constants.NAMESPACE_CHANGE_STREAM;
+
+/**
+ * Moves committed namespace change events and metadata records from the outbox table to the
+ * change log. A relay is requested after every commit writing the outbox, requests arriving while
+ * one runs collapse into one follow up relay, and the periodic poll picks up what a crashed node
+ * left behind. Delivery is at least once, listeners skip the versions they already reached.
+ */
+@Component
+@Slf4j
+public class NamespaceChangeOutboxRelay {
+
+    // pg advisory lock key held by the relaying transaction, any node
+    private static final long RELAY_LOCK_KEY = 7_319_027_511L;
+
+    private final NamespaceChangeOutboxRepository outboxRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final long changeLogMaxLength;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public NamespaceChangeOutboxRelay(NamespaceChangeOutboxRepository outboxRepository,
+                                      StringRedisTemplate redisTemplate,
+                                      @Qualifier(value = Constants.THREAD_EXECUTOR) ThreadPoolTaskExecutor executor,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.policy-change-log.outbox-batch-size}") int batchSize,
+                                      @Value("${app.policy-change-log.max-length}") long changeLogMaxLength) {
+        this.outboxRepository = outboxRepository;
+        this.redisTemplate = redisTemplate;
+        this.executor = executor;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.changeLogMaxLength = changeLogMaxLength;
+    }
+
+    // Inside a transaction the relay waits for its commit, so listeners never read uncommitted state.
+    public void requestRelayAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestRelay();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestRelay();
+            }
+        });
+    }
+
+    public void requestRelay() {
+        if (pending.getAndIncrement() == 0) {
+            submit();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.policy-change-log.outbox-poll-interval}")
+    public void poll() {
+        requestRelay();
+    }
+
+    private void submit() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.error("Rejected relaying namespace changes, left to the next poll", e);
+            pending.set(0);
+        }
+    }
+
+    private void drain() {
+        int served = pending.get();
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            log.error("Failed relaying namespace changes, left to the next poll", e);
+        }
+        if (pending.addAndGet(-served) > 0) {
+            submit();
+        }
+    }
+
+    /**
+     * Relays the outbox in batches until it is empty, returns how many events were relayed. A batch
+     * is deleted in the transaction that appended it, when appending fails the batch is retried.
+     */
+    public int relay() {
+        int relayed = 0;
+        while (true) {
+            int batch = Objects.requireNonNull(transaction.execute(status -> relayBatch()));
+            relayed += batch;
+            if (batch < batchSize) {
+                return relayed;
+            }
+        }
+    }
+
+    private int relayBatch() {
+        // one relay at a time keeps the versions of a namespace in order on the change log
+        outboxRepository.lockRelay(RELAY_LOCK_KEY);
+        List<NamespaceChangeOutbox> batch = outboxRepository.findRelayBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            batch.forEach(outbox -> stringConnection.xAdd(StreamRecords
+                    .string(Map.of(outbox.getEventField(), outbox.getPayload()))
+                    .withStreamKey(NAMESPACE_CHANGE_STREAM)));
+            return null;
+        });
+        redisTemplate.opsForStream().trim(NAMESPACE_CHANGE_STREAM, changeLogMaxLength, true);
+        outboxRepository.deleteAllByIdInBatch(batch.stream().map(NamespaceChangeOutbox::getOutboxId).toList());
+        log.info("Relayed {} namespace changes to the change log", batch.size());
+        return batch.size();
+    }
+}
@@ -1,31 +1,38 @@
 package org.ducanh.apiiam.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
 import org.ducanh.apiiam.dto.events.NamespaceChangeEvent;
+import org.ducanh.apiiam.dto.events.NamespaceMetadataChangedEvent;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.requests.CreateNamespaceRequestDto;
 import org.ducanh.apiiam.dto.requests.IndexNamespaceRequestParamsDto;
 import org.ducanh.apiiam.dto.requests.UpdateNamespaceRequestDto;
 import org.ducanh.apiiam.dto.responses.NamespaceResponseDto;
 import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.NamespaceChangeOutbox;
 import org.ducanh.apiiam.exceptions.CommonException;
 import org.ducanh.apiiam.repositories.KeyPairRepository;
+import org.ducanh.apiiam.repositories.NamespaceChangeOutboxRepository;
 import org.ducanh.apiiam.repositories.NamespaceRepository;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
-import static org.ducanh.apiiam.Constants.NAMESPACE_CHANGE_TOPIC;
+import static org.ducanh.apiiam.Constants.NAMESPACE_CHANGE_EVENT_FIELD;
 import static org.ducanh.apiiam.exceptions.ErrorCode.*;
 
 
@@ -34,21 +41,55 @@ import static org.ducanh.apiiam.exceptions.ErrorCode.*;
 public class NamespaceService {
     private final NamespaceRepository namespaceRepository;
     private final KeyPairRepository keyPairRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final NamespaceChangeOutboxRepository outboxRepository;
+    private final NamespaceChangeOutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final MetadataCacheService metadataCacheService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public NamespaceService(NamespaceRepository namespaceRepository,
                             KeyPairRepository keyPairRepository,
-                            RedisTemplate<String, Object> redisTemplate) {
+                            NamespaceChangeOutboxRepository outboxRepository,
+                            NamespaceChangeOutboxRelay outboxRelay,
+                            ObjectMapper objectMapper,
+                            MetadataCacheService metadataCacheService,
+                            ApplicationEventPublisher eventPublisher) {
         this.namespaceRepository = namespaceRepository;
         this.keyPairRepository = keyPairRepository;
-        this.redisTemplate = redisTemplate;
+        this.outboxRepository = outboxRepository;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+        this.metadataCacheService = metadataCacheService;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Bumps the namespace version and writes the changes to the outbox, in the transaction of the
+     * caller so they commit with the change itself. They reach the change log after the commit.
+     * Returns the new version, or null when the namespace does not exist.
+     */
     @Transactional
-    public void increaseNamespaceVersion(String namespaceId) {
+    public Long increaseNamespaceVersion(String namespaceId, List<PolicyChange> changes) {
         int updatedRecord = namespaceRepository.increaseNamespaceVersion(namespaceId, 1L);
-        log.info("Namespace updated: {}", updatedRecord);
-        redisTemplate.convertAndSend(NAMESPACE_CHANGE_TOPIC, new NamespaceChangeEvent(namespaceId));
+        Long version = namespaceRepository.findVersionByNamespaceId(namespaceId);
+        log.info("Namespace updated: {}, version: {}", updatedRecord, version);
+        if (Objects.isNull(version)) {
+            log.info("Skip publishing changes, namespace: {} does not exist", namespaceId);
+            return null;
+        }
+        var event = new NamespaceChangeEvent(namespaceId, version, changes);
+        try {
+            outboxRepository.save(NamespaceChangeOutbox.builder()
+                    .eventField(NAMESPACE_CHANGE_EVENT_FIELD)
+                    .namespaceId(namespaceId)
+                    .version(version)
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build());
+        } catch (JsonProcessingException ex) {
+            throw new CommonException(UNKNOWN_ERROR, "Serialize namespace change event failed").setCause(ex);
+        }
+        outboxRelay.requestRelayAfterCommit();
+        return version;
     }
 
     public NamespaceResponseDto createNamespace(CreateNamespaceRequestDto request) {
@@ -80,9 +121,14 @@ public class NamespaceService {
         keyPairRepository.findById(request.keyPairId())
                 .orElseThrow(() -> new CommonException(KEYPAIR_NOT_EXIST, "KeyPair not found with id: {0}", request.keyPairId()));
 
+        boolean keyPairChanged = !Objects.equals(namespace.getKeyPairId(), request.keyPairId());
         namespace.setNamespaceName(request.namespaceName());
         namespace.setDescription(request.description());
         namespace.setKeyPairId(request.keyPairId());
+        if (keyPairChanged) {
+            metadataCacheService.recordNamespaceMetadataChange(id);
+            eventPublisher.publishEvent(new NamespaceMetadataChangedEvent(id));
+        }
 
         return namespace.toNamespaceResponseDto();
     }
@@ -1,6 +1,7 @@
 package org.ducanh.apiiam.services;
 
 import jakarta.persistence.criteria.Predicate;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.requests.CreatePermissionRequestDto;
 import org.ducanh.apiiam.dto.requests.IndexPermissionRequestParamsDto;
 import org.ducanh.apiiam.dto.requests.UpdatePermissionRequestDto;
@@ -27,12 +28,15 @@ import static  org.ducanh.apiiam.exceptions.ErrorCode.*;
 public class PermissionService {
     private final PermissionRepository permissionRepository;
     private final RolePermissionRepository rolePermissionRepository;
+    private final NamespaceService namespaceService;
 
     @Autowired
     public PermissionService(PermissionRepository permissionRepository,
-                             RolePermissionRepository rolePermissionRepository) {
+                             RolePermissionRepository rolePermissionRepository,
+                             NamespaceService namespaceService) {
         this.permissionRepository = permissionRepository;
         this.rolePermissionRepository = rolePermissionRepository;
+        this.namespaceService = namespaceService;
     }
 
     public PermissionResponseDto createPermission(String namespaceId, CreatePermissionRequestDto request) {
@@ -69,11 +73,13 @@ public class PermissionService {
     }
 
     @Transactional
-    public void deletePermission(String namespaceId, String permissionId) {
+    public Long deletePermission(String namespaceId, String permissionId) {
         Permission permission = permissionRepository.findPermissionByNamespaceIdAndPermissionId(namespaceId, permissionId)
                 .orElseThrow(() -> new CommonException(PERMISSION_NOT_EXIST, "Permission not found with id: {0}", permissionId));
         rolePermissionRepository.deleteAllByPermissionIdAndNamespaceId(permissionId, namespaceId);
         permissionRepository.delete(permission);
+        return namespaceService.increaseNamespaceVersion(namespaceId,
+                List.of(PolicyChange.permissionDeleted(permissionId)));
     }
 
     private Specification<Permission> buildSearchCriteria(String namespaceId, IndexPermissionRequestParamsDto params) {
@@ -0,0 +1,156 @@
+package org.ducanh.apiiam.services;
+
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
+import org.ducanh.apiiam.dto.responses.RoleResponseDto;
+import org.ducanh.apiiam.entities.Role;
+import org.ducanh.apiiam.entities.RoleInheritance;
+import org.ducanh.apiiam.entities.RoleInheritanceIdOnly;
+import org.ducanh.apiiam.exceptions.CommonException;
+import org.ducanh.apiiam.exceptions.ErrorCode;
+import org.ducanh.apiiam.repositories.NamespaceRepository;
+import org.ducanh.apiiam.repositories.RoleInheritanceRepository;
+import org.ducanh.apiiam.repositories.RoleRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@Transactional
+public class RoleInheritanceService {
+    private final RoleInheritanceRepository roleInheritanceRepository;
+    private final RoleRepository roleRepository;
+    private final NamespaceRepository namespaceRepository;
+    private final NamespaceService namespaceService;
+
+    public RoleInheritanceService(
+            RoleInheritanceRepository roleInheritanceRepository,
+            RoleRepository roleRepository,
+            NamespaceRepository namespaceRepository,
+            NamespaceService namespaceService
+    ) {
+        this.roleInheritanceRepository = roleInheritanceRepository;
+        this.roleRepository = roleRepository;
+        this.namespaceRepository = namespaceRepository;
+        this.namespaceService = namespaceService;
+    }
+
+    public Long assignChildRolesToRole(String namespaceId, String roleId, List<String> childRoleIds) {
+        roleRepository.findROleByNamespaceIdAndRoleId(namespaceId, roleId)
+                .orElseThrow(() -> new CommonException(ErrorCode.ROLE_NOT_FOUND,
+                        "roleId: {0}, namespaceId: {1}", roleId, namespaceId));
+        List<String> distinctChildRoleIds = childRoleIds.stream().distinct().toList();
+        long existingRolesCount = roleRepository.countAllByNamespaceIdAndRoleIdIn(namespaceId, distinctChildRoleIds);
+        if (existingRolesCount != distinctChildRoleIds.size()) {
+            throw new CommonException(ErrorCode.ROLE_NOT_FOUND, "Some child role not exists");
+        }
+
+        // concurrent writers could otherwise close a cycle between them, each seeing the other's edge missing
+        namespaceRepository.lockByNamespaceId(namespaceId);
+        Map<String, List<String>> childrenByRoleId = roleInheritanceRepository.findAllByNamespaceId(namespaceId)
+                .stream()
+                .collect(Collectors.groupingBy(RoleInheritanceIdOnly::roleId,
+                        Collectors.mapping(RoleInheritanceIdOnly::childRoleId, Collectors.toList())));
+        for (String childRoleId : distinctChildRoleIds) {
+            if (includes(childrenByRoleId, childRoleId, roleId)) {
+                throw new CommonException(ErrorCode.ROLE_INHERITANCE_CYCLE,
+                        "roleId: {0} already includes roleId: {1}, namespaceId: {2}", childRoleId, roleId, namespaceId);
+            }
+        }
+
+        Set<String> existedChildRoleIds = new HashSet<>(roleInheritanceRepository
+                .findExistedChildRoleIds(namespaceId, roleId, distinctChildRoleIds));
+        List<RoleInheritance> newRoleInheritances = distinctChildRoleIds.stream()
+                .filter(childRoleId -> !existedChildRoleIds.contains(childRoleId))
+                .map(childRoleId -> RoleInheritance.builder()
+                        .roleId(roleId)
+                        .childRoleId(childRoleId)
+                        .namespaceId(namespaceId)
+                        .build())
+                .toList();
+        if (newRoleInheritances.isEmpty()) {
+            return null;
+        }
+        roleInheritanceRepository.saveAll(newRoleInheritances);
+        return namespaceService.increaseNamespaceVersion(namespaceId, List.of(PolicyChange.roleChildrenAdded(roleId,
+                newRoleInheritances.stream().map(RoleInheritance::getChildRoleId).toList())));
+    }
+
+    // Whether roleId is includedRoleId or reaches it through child edges.
+    private static boolean includes(Map<String, List<String>> childrenByRoleId, String roleId, String includedRoleId) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(List.of(roleId));
+        while (!pending.isEmpty()) {
+            String current = pending.pop();
+            if (current.equals(includedRoleId)) {
+                return true;
+            }
+            if (visited.add(current)) {
+                pending.addAll(childrenByRoleId.getOrDefault(current, List.of()));
+            }
+        }
+        return false;
+    }
+
+    public Long removeChildRolesFromRole(String namespaceId, String roleId, List<String> childRoleIds) {
+        if (!roleRepository.existsByRoleIdAndNamespaceId(roleId, namespaceId)) {
+            throw new CommonException(ErrorCode.ROLE_NOT_FOUND,
+                    "roleId: {0}, namespaceId: {1}", roleId, namespaceId);
+        }
+        List<String> existedChildRoleIds = roleInheritanceRepository.findExistedChildRoleIds(namespaceId, roleId,
+                childRoleIds.stream().distinct().toList());
+        if (existedChildRoleIds.isEmpty()) {
+            return null;
+        }
+        roleInheritanceRepository.deleteAllByNamespaceIdAndRoleIdAndChildRoleIdIn(namespaceId, roleId,
+                existedChildRoleIds);
+        return namespaceService.increaseNamespaceVersion(namespaceId,
+                List.of(PolicyChange.roleChildrenRemoved(roleId, existedChildRoleIds)));
+    }
+
+    public Page<RoleResponseDto> getChildRoles(String namespaceId, String roleId, String roleName, Pageable pageable) {
+        if (!roleRepository.existsByRoleIdAndNamespaceId(roleId, namespaceId)) {
+            throw new CommonException(ErrorCode.ROLE_NOT_FOUND,
+                    "roleId: {0}, namespaceId: {1}", roleId, namespaceId);
+        }
+
+        Specification<Role> spec = (root, query, cb) -> {
+            assert query != null;
+            List<Predicate> predicates = new ArrayList<>();
+            Subquery<String> roleInheritanceSubquery = query.subquery(String.class);
+            Root<RoleInheritance> roleInheritanceRoot = roleInheritanceSubquery.from(RoleInheritance.class);
+            roleInheritanceSubquery.select(roleInheritanceRoot.get(RoleInheritance.Fields.childRoleId))
+                    .where(cb.and(
+                            cb.equal(roleInheritanceRoot.get(RoleInheritance.Fields.roleId), roleId),
+                            cb.equal(roleInheritanceRoot.get(RoleInheritance.Fields.namespaceId), namespaceId)
+                    ));
+            predicates.add(root.get(Role.Fields.roleId).in(roleInheritanceSubquery));
+            predicates.add(cb.equal(root.get(Role.Fields.namespaceId), namespaceId));
+            if (StringUtils.hasText(roleName)) {
+                predicates.add(cb.like(
+                        cb.lower(root.get(Role.Fields.roleName)),
+                        "%" + roleName.toLowerCase().trim() + "%"
+                ));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+
+        return roleRepository.findAll(spec, pageable).map(Role::toResponseDto);
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Subquery;
 import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.responses.PermissionRoleResponseDto;
 import org.ducanh.apiiam.dto.responses.RolePermissionResponseDto;
 import org.ducanh.apiiam.entities.Permission;
@@ -33,18 +34,21 @@ public class RolePermissionService {
     private final RolePermissionRepository rolePermissionRepository;
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
+    private final NamespaceService namespaceService;
 
     public RolePermissionService(
             RolePermissionRepository rolePermissionRepository,
             RoleRepository roleRepository,
-            PermissionRepository permissionRepository
+            PermissionRepository permissionRepository,
+            NamespaceService namespaceService
     ) {
         this.rolePermissionRepository = rolePermissionRepository;
         this.roleRepository = roleRepository;
         this.permissionRepository = permissionRepository;
+        this.namespaceService = namespaceService;
     }
 
-    public void assignPermissionsToRole(String namespaceId, String roleId, List<String> permissionIds) {
+    public Long assignPermissionsToRole(String namespaceId, String roleId, List<String> permissionIds) {
         roleRepository.findROleByNamespaceIdAndRoleId(namespaceId, roleId)
                 .orElseThrow(() -> new CommonException(ErrorCode.ROLE_NOT_FOUND,
                         "roleId: {0}, namespaceId: {1}", roleId, namespaceId));
@@ -69,14 +73,18 @@ public class RolePermissionService {
                 .toList();
 
         rolePermissionRepository.saveAll(newRolePermissions);
+        return namespaceService.increaseNamespaceVersion(namespaceId,
+                List.of(PolicyChange.rolePermissionsAdded(roleId, permissionIds)));
     }
 
-    public void removePermissionsFromRole(String namespaceId, String roleId, List<String> permissionIds) {
+    public Long removePermissionsFromRole(String namespaceId, String roleId, List<String> permissionIds) {
         if (!roleRepository.existsByRoleIdAndNamespaceId(roleId, namespaceId)) {
             throw new CommonException(ErrorCode.ROLE_NOT_FOUND,
                     "roleId: {0}, namespaceId: {1}", roleId, namespaceId);
         }
         rolePermissionRepository.deleteAllByNamespaceIdAndRoleIdAndPermissionIdIn(namespaceId, roleId, permissionIds);
+        return namespaceService.increaseNamespaceVersion(namespaceId,
+                List.of(PolicyChange.rolePermissionsRemoved(roleId, permissionIds)));
     }
 
     public Page<RolePermissionResponseDto> getRolePermissions(
@@ -2,6 +2,7 @@ package org.ducanh.apiiam.services;
 
 import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.requests.CreateRoleRequestDto;
 import org.ducanh.apiiam.dto.requests.UpdateRoleRequestDto;
 import org.ducanh.apiiam.dto.responses.CreateRoleResponseDto;
@@ -11,6 +12,7 @@ import org.ducanh.apiiam.entities.Role;
 import org.ducanh.apiiam.exceptions.CommonException;
 import org.ducanh.apiiam.exceptions.ErrorCode;
 import org.ducanh.apiiam.repositories.GroupRoleRepository;
+import org.ducanh.apiiam.repositories.RoleInheritanceRepository;
 import org.ducanh.apiiam.repositories.RolePermissionRepository;
 import org.ducanh.apiiam.repositories.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,14 +33,20 @@ public class RoleService {
     private final RoleRepository roleRepository;
     private final RolePermissionRepository rolePermissionRepository;
     private final GroupRoleRepository groupRoleRepository;
+    private final RoleInheritanceRepository roleInheritanceRepository;
+    private final NamespaceService namespaceService;
 
     @Autowired
     public RoleService(RoleRepository roleRepository,
                        RolePermissionRepository rolePermissionRepository,
-                       GroupRoleRepository groupRoleRepository) {
+                       GroupRoleRepository groupRoleRepository,
+                       RoleInheritanceRepository roleInheritanceRepository,
+                       NamespaceService namespaceService) {
         this.roleRepository = roleRepository;
         this.rolePermissionRepository = rolePermissionRepository;
         this.groupRoleRepository = groupRoleRepository;
+        this.roleInheritanceRepository = roleInheritanceRepository;
+        this.namespaceService = namespaceService;
     }
 
     public CreateRoleResponseDto createRole(String namespaceId, CreateRoleRequestDto requestDto) {
@@ -80,12 +88,15 @@ public class RoleService {
     }
 
     @Transactional
-    public void deleteRole(String namespaceId, String roleId) {
+    public Long deleteRole(String namespaceId, String roleId) {
         Role role = roleRepository.findROleByNamespaceIdAndRoleId(namespaceId, roleId)
                 .orElseThrow(() -> new RuntimeException("Role not found with id: " + roleId));
         rolePermissionRepository.deleteAllByRoleIdAndNamespaceId(roleId, namespaceId);
         groupRoleRepository.deleteAllByRoleIdAndNamespaceId(roleId, namespaceId);
+        roleInheritanceRepository.deleteAllByRoleIdAndNamespaceId(roleId, namespaceId);
+        roleInheritanceRepository.deleteAllByChildRoleIdAndNamespaceId(roleId, namespaceId);
         roleRepository.delete(role);
+        return namespaceService.increaseNamespaceVersion(namespaceId, List.of(PolicyChange.roleDeleted(roleId)));
     }
 
 }
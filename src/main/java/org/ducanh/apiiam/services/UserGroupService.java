@@ -4,6 +4,7 @@ import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Subquery;
 import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.responses.UserGroupResponseDto;
 import org.ducanh.apiiam.dto.responses.VerifyUserGroupResponseDto;
 import org.ducanh.apiiam.entities.Group;
@@ -34,19 +35,22 @@ public class UserGroupService {
     private final UserGroupRepository userGroupRepository;
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
+    private final NamespaceService namespaceService;
 
     public UserGroupService(
             UserGroupRepository userGroupRepository,
             GroupRepository groupRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            NamespaceService namespaceService
     ) {
         this.userGroupRepository = userGroupRepository;
         this.groupRepository = groupRepository;
         this.userRepository = userRepository;
+        this.namespaceService = namespaceService;
     }
 
     @Transactional
-    public void assignGroupsToUser(Long userId, List<String> groupIds) {
+    public Long assignGroupsToUser(Long userId, List<String> groupIds) {
         User user = userRepository.findByUserIdOrThrow(userId);
         String namespaceId = user.getNamespaceId();
         if (!groupRepository.existsAllByNamespaceIdAndGroupIdIn(namespaceId, groupIds)) {
@@ -64,6 +68,8 @@ public class UserGroupService {
                         .build())
                 .collect(Collectors.toList());
         userGroupRepository.saveAll(newUserGroups);
+        return namespaceService.increaseNamespaceVersion(namespaceId,
+                List.of(PolicyChange.userGroupsAdded(userId, groupIdToAssign)));
     }
 
     public Page<UserGroupResponseDto> getUserGroups(Long userId, String groupName, Boolean assignedOnly, Pageable pageable) {
@@ -87,10 +93,12 @@ public class UserGroupService {
     }
 
     @Transactional
-    public void removeUserFromGroups(Long userId, List<String> groupIds) {
-        userRepository.findByUserIdOrThrow(userId);
+    public Long removeUserFromGroups(Long userId, List<String> groupIds) {
+        User user = userRepository.findByUserIdOrThrow(userId);
         Integer numberOfDeletedRecords = userGroupRepository.removeUserFromGroups(userId, groupIds);
         log.info("Remove {} groups from user: {}", numberOfDeletedRecords, userId);
+        return namespaceService.increaseNamespaceVersion(user.getNamespaceId(),
+                List.of(PolicyChange.userGroupsRemoved(userId, groupIds)));
     }
 
     private Specification<Group> buildSpecToFindGroupByUserId(Long userId, String groupName, Boolean assignedOnly) {
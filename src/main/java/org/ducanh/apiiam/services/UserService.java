@@ -2,6 +2,7 @@ package org.ducanh.apiiam.services;
 
 import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.dto.requests.CreateUserRequestDto;
 import org.ducanh.apiiam.dto.requests.IndexUserRequestParamsDto;
 import org.ducanh.apiiam.dto.requests.UpdatePasswordRequestDto;
@@ -33,14 +34,17 @@ public class UserService {
     private final UserRepository userRepository;
     private final SessionService sessionService;
     private final JwtTokenService jwtTokenService;
+    private final NamespaceService namespaceService;
 
     public UserService(UserRepository userRepository,
                        SessionService sessionService,
-                       JwtTokenService jwtTokenService
+                       JwtTokenService jwtTokenService,
+                       NamespaceService namespaceService
                        ) {
         this.userRepository = userRepository;
         this.sessionService = sessionService;
         this.jwtTokenService = jwtTokenService;
+        this.namespaceService = namespaceService;
     }
 
     @Transactional
@@ -115,10 +119,11 @@ public class UserService {
     }
 
     @Transactional
-    public void deleteUser(Long userId) {
+    public Long deleteUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CommonException(ErrorCode.USER_ID_NOT_EXISTED, "UserId: {0}", userId));
         user.setDeleted(true);
+        return namespaceService.increaseNamespaceVersion(user.getNamespaceId(), List.of(PolicyChange.userDeleted(userId)));
     }
 
     public UserLoginResponseDto updatePassword(Long userId,
@@ -0,0 +1,131 @@
+package org.ducanh.apiiam.storage;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.dto.events.PolicyChange;
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Group ids and permission ids are dictionary encoded into dense ints, the effective permissions
+ * of every group are kept as one compressed bitmap indexed by the group's int id.
+ */
+@Slf4j
+public class BitmapPolicyStorage implements PolicyStorage {
+
+    // distinct group combinations are few in practice, a check of many groups then is one probe
+    private static final int GROUP_SET_CACHE_CAPACITY = 1_024;
+
+    private final PolicyGraph graph;
+    private final GroupSetCache groupSetCache = new GroupSetCache(GROUP_SET_CACHE_CAPACITY);
+
+    @Getter
+    private final String namespaceId;
+    @Getter
+    private final Long version;
+    private volatile long sizeInBytes = -1;
+
+    public BitmapPolicyStorage(Namespace namespace, List<GroupRoleIdOnly> groupRoles,
+                               List<RolePermissionIdOnly> rolePermissions) {
+        this(namespace, groupRoles, rolePermissions, List.of());
+    }
+
+    public BitmapPolicyStorage(Namespace namespace, List<GroupRoleIdOnly> groupRoles,
+                               List<RolePermissionIdOnly> rolePermissions, List<UserGroupIdOnly> userGroups) {
+        this(namespace, PolicyRows.of(groupRoles, rolePermissions, userGroups));
+    }
+
+    public BitmapPolicyStorage(Namespace namespace, PolicyRows rows) {
+        this(namespace.getNamespaceId(), Objects.requireNonNullElse(namespace.getVersion(), 0L),
+                PolicyGraph.of(rows));
+        log.info("Built policy for namespace: {}, groups: {}, permissions: {}, bitmap bytes: {}",
+                namespaceId, graph.groupCount(), graph.permissionCount(), graph.sizeInBytes());
+    }
+
+    private BitmapPolicyStorage(String namespaceId, Long version, PolicyGraph graph) {
+        this.namespaceId = namespaceId;
+        this.version = version;
+        this.graph = graph;
+    }
+
+    @Override
+    public Boolean checkAccess(String groupId, String permissionId) {
+        return graph.checkAccess(groupId, permissionId);
+    }
+
+    @Override
+    public Boolean checkAccess(List<String> groupIds, String permissionId) {
+        if (groupIds.size() == 1) {
+            return graph.checkAccess(groupIds.get(0), permissionId);
+        }
+        return graph.grants(groupSetCache.get(groupIds, graph::groupSetPermissions), permissionId);
+    }
+
+    int cachedGroupSets() {
+        return groupSetCache.size();
+    }
+
+    @Override
+    public Boolean checkUserAccess(Long userId, String permissionId) {
+        return graph.checkUserAccess(String.valueOf(userId), permissionId);
+    }
+
+    @Override
+    public Optional<IdPage> findRolesGranting(String permissionId, int offset, int limit) {
+        return Optional.of(graph.rolesGranting(permissionId, offset, limit));
+    }
+
+    @Override
+    public Optional<IdPage> findGroupsGranting(String permissionId, int offset, int limit) {
+        return Optional.of(graph.groupsGranting(permissionId, offset, limit));
+    }
+
+    @Override
+    public List<String> findEffectivePermissions(List<String> groupIds) {
+        return graph.effectivePermissions(groupIds);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        if (sizeInBytes < 0) {
+            sizeInBytes = graph.sizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public int groupCount() {
+        return graph.groupCount();
+    }
+
+    @Override
+    public int permissionCount() {
+        return graph.permissionCount();
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(namespaceId);
+        out.writeLong(version);
+        graph.write(out);
+    }
+
+    static BitmapPolicyStorage read(DataInput in) throws IOException {
+        return new BitmapPolicyStorage(in.readUTF(), in.readLong(), PolicyGraph.read(in));
+    }
+
+    @Override
+    public Optional<PolicyStorage> applyChanges(List<PolicyChange> changes, Long version) {
+        PolicyGraph next = graph.edit();
+        changes.forEach(next::apply);
+        return Optional.of(new BitmapPolicyStorage(namespaceId, version, next.freeze()));
+    }
+}
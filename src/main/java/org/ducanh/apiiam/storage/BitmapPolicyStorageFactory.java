@@ -0,0 +1,32 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.Namespace;
+
+import java.util.Optional;
+
+// On heap engine backed by local snapshots, so a restart only rebuilds namespaces that moved on.
+public class BitmapPolicyStorageFactory implements PolicyStorageFactory {
+
+    private final PolicySnapshotStore snapshotStore;
+
+    public BitmapPolicyStorageFactory(PolicySnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
+    }
+
+    @Override
+    public PolicyStorage build(Namespace namespace, PolicyRows rows) {
+        return new BitmapPolicyStorage(namespace, rows);
+    }
+
+    @Override
+    public Optional<PolicyStorage> open(Namespace namespace) {
+        return snapshotStore.load(namespace).map(PolicyStorage.class::cast);
+    }
+
+    @Override
+    public void persist(PolicyStorage policyStorage) {
+        if (policyStorage instanceof BitmapPolicyStorage bitmapPolicyStorage) {
+            snapshotStore.save(bitmapPolicyStorage);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.ducanh.apiiam.storage;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Bitmaps indexed by dictionary id. A copy shares every bitmap with its source until
+ * {@link #edit(int)} clones the one that is about to change, so published snapshots are never
+ * mutated.
+ */
+final class CopyOnWriteBitmaps {
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private RoaringBitmap[] bitmaps;
+    private final RoaringBitmap owned = new RoaringBitmap();
+
+    CopyOnWriteBitmaps() {
+        this.bitmaps = new RoaringBitmap[0];
+    }
+
+    private CopyOnWriteBitmaps(RoaringBitmap[] bitmaps) {
+        this.bitmaps = bitmaps;
+    }
+
+    CopyOnWriteBitmaps copy() {
+        return new CopyOnWriteBitmaps(bitmaps.clone());
+    }
+
+    // Read only view, never mutate the returned bitmap.
+    RoaringBitmap get(int index) {
+        RoaringBitmap bitmap = index < bitmaps.length ? bitmaps[index] : null;
+        return bitmap == null ? EMPTY : bitmap;
+    }
+
+    RoaringBitmap edit(int index) {
+        ensureCapacity(index);
+        if (!owned.checkedAdd(index)) {
+            return bitmaps[index];
+        }
+        bitmaps[index] = bitmaps[index] == null ? new RoaringBitmap() : bitmaps[index].clone();
+        return bitmaps[index];
+    }
+
+    void set(int index, RoaringBitmap bitmap) {
+        ensureCapacity(index);
+        owned.add(index);
+        bitmaps[index] = bitmap;
+    }
+
+    int size() {
+        return bitmaps.length;
+    }
+
+    // Owned bitmaps are distinct objects, so they can be optimized concurrently.
+    void optimize(boolean parallel) {
+        IntStream indexes = Arrays.stream(owned.toArray());
+        (parallel ? indexes.parallel() : indexes).forEach((index) -> bitmaps[index].runOptimize());
+    }
+
+    long sizeInBytes() {
+        long size = 0;
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                size += bitmap.getLongSizeInBytes();
+            }
+        }
+        return size;
+    }
+
+    // Skips bitmaps that are the same instance at the same index of shared, they are counted there.
+    long sizeInBytesNotSharedWith(CopyOnWriteBitmaps shared) {
+        long size = 0;
+        for (int index = 0; index < bitmaps.length; index++) {
+            RoaringBitmap bitmap = bitmaps[index];
+            if (bitmap != null && bitmap != shared.get(index)) {
+                size += bitmap.getLongSizeInBytes();
+            }
+        }
+        return size;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= bitmaps.length) {
+            bitmaps = Arrays.copyOf(bitmaps, Math.max(index + 1, bitmaps.length + (bitmaps.length >> 1)));
+        }
+    }
+}
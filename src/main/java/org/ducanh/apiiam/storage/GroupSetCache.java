@@ -0,0 +1,37 @@
+package org.ducanh.apiiam.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Union of the permissions of a set of groups, memoized for the most used sets. Keys are the sets
+ * themselves, so the same groups in any order or with duplicates share one entry. Belongs to one
+ * version of a namespace, a new version starts with an empty cache.
+ */
+final class GroupSetCache {
+
+    private final Cache<Set<String>, RoaringBitmap> unions;
+
+    GroupSetCache(int capacity) {
+        this.unions = Caffeine.newBuilder()
+                .maximumSize(capacity)
+                // eviction runs on the checking thread, no task is scheduled per namespace version
+                .executor(Runnable::run)
+                .build();
+    }
+
+    // Lock free on hits, concurrent misses of one set compute its union once.
+    RoaringBitmap get(List<String> groupIds, Function<Set<String>, RoaringBitmap> union) {
+        return unions.get(Set.copyOf(groupIds), union);
+    }
+
+    int size() {
+        unions.cleanUp();
+        return (int) unions.estimatedSize();
+    }
+}
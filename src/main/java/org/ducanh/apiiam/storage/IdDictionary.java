@@ -0,0 +1,94 @@
+package org.ducanh.apiiam.storage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes the string ids of one namespace into dense ints. Indexes are append only, once handed
+ * out an index always maps to the same id, so bitmaps built on top of it stay valid.
+ */
+class IdDictionary {
+
+    static final int NOT_FOUND = -1;
+    // String, its byte array, map node, boxed index and array slot
+    private static final int ENTRY_OVERHEAD_BYTES = 112;
+
+    private final Map<String, Integer> indexes;
+    private volatile String[] values;
+    private int size;
+    private volatile long sizeInBytes;
+    private volatile Ranking ranking = new Ranking(new int[0], new int[0]);
+
+    /**
+     * Sorted order of the ids: {@code idAt[rank]} is the index of the rank-th smallest id and
+     * {@code rankOf[index]} its inverse.
+     */
+    record Ranking(int[] rankOf, int[] idAt) {
+        int size() {
+            return idAt.length;
+        }
+    }
+
+    IdDictionary() {
+        this(16);
+    }
+
+    IdDictionary(int expectedSize) {
+        this.indexes = new ConcurrentHashMap<>(Math.max(expectedSize, 16));
+        this.values = new String[Math.max(expectedSize, 16)];
+    }
+
+    int indexOf(String value) {
+        Integer index = indexes.get(value);
+        return index == null ? NOT_FOUND : index;
+    }
+
+    synchronized int getOrAdd(String value) {
+        Integer index = indexes.get(value);
+        if (index != null) {
+            return index;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size] = value;
+        indexes.put(value, size);
+        sizeInBytes += ENTRY_OVERHEAD_BYTES + value.length();
+        return size++;
+    }
+
+    String valueOf(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return indexes.size();
+    }
+
+    // Recomputed only when ids were added since the last call, concurrent callers may both compute it.
+    Ranking ranking() {
+        Ranking current = ranking;
+        int size = size();
+        if (current.size() == size) {
+            return current;
+        }
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(this::valueOf));
+        int[] rankOf = new int[size];
+        int[] idAt = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            idAt[rank] = order[rank];
+            rankOf[order[rank]] = rank;
+        }
+        Ranking computed = new Ranking(rankOf, idAt);
+        ranking = computed;
+        return computed;
+    }
+
+    long sizeInBytes() {
+        return sizeInBytes;
+    }
+}
@@ -0,0 +1,7 @@
+package org.ducanh.apiiam.storage;
+
+import java.util.List;
+
+// One page of ids sorted ascending, total counts every id matching the query.
+public record IdPage(List<String> ids, long total) {
+}
@@ -0,0 +1,268 @@
+package org.ducanh.apiiam.storage;
+
+import lombok.Getter;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.buffer.BufferFastAggregation;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Off heap engine. The effective permissions of every group are written as serialized roaring
+ * bitmaps into one file per namespace version, which is memory mapped and queried in place, so
+ * only a few handles stay on the heap and the file can be reopened after a restart.
+ * <p>
+ * Layout: {@code magic, format, version, namespaceId, groups, permissions, permissionCodes[],
+ * groupBitmapOffsets[groups + 1], groupBitmaps, users, userBitmapOffsets[users + 1], userBitmaps},
+ * groups, permissions and users are {@link MappedStringTable}s. User bitmaps hold positions in the
+ * sorted group table. Wildcard permissions are compiled into a {@link WildcardTrie} when the file
+ * is opened.
+ */
+public class MappedPolicyStorage implements PolicyStorage {
+
+    private static final int MAGIC = 0x504F4C31;
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+
+    private final ByteBuffer buffer;
+    private final MappedStringTable groups;
+    private final MappedStringTable permissions;
+    private final MappedStringTable users;
+    private final int permissionCodesPosition;
+    private final int groupBitmapOffsetsPosition;
+    private final int userBitmapOffsetsPosition;
+    private final WildcardTrie wildcards;
+
+    @Getter
+    private final String namespaceId;
+    @Getter
+    private final Long version;
+
+    private MappedPolicyStorage(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != FORMAT) {
+            throw new IllegalStateException("Unsupported policy storage file");
+        }
+        this.buffer = buffer;
+        this.version = buffer.getLong(2 * Integer.BYTES);
+        byte[] namespaceIdBytes = new byte[buffer.getInt(HEADER_BYTES)];
+        buffer.get(HEADER_BYTES + Integer.BYTES, namespaceIdBytes);
+        this.namespaceId = new String(namespaceIdBytes, StandardCharsets.UTF_8);
+        this.groups = new MappedStringTable(buffer, HEADER_BYTES + Integer.BYTES + namespaceIdBytes.length);
+        this.permissions = new MappedStringTable(buffer, groups.end());
+        this.permissionCodesPosition = permissions.end();
+        this.groupBitmapOffsetsPosition = permissionCodesPosition + permissions.size() * Integer.BYTES;
+        this.users = new MappedStringTable(buffer,
+                buffer.getInt(groupBitmapOffsetsPosition + groups.size() * Integer.BYTES));
+        this.userBitmapOffsetsPosition = users.end();
+        Map<String, Integer> patterns = new HashMap<>();
+        for (int permission = 0; permission < permissions.size(); permission++) {
+            String permissionId = permissions.valueOf(permission);
+            if (WildcardTrie.isWildcard(permissionId)) {
+                patterns.put(permissionId, codeOf(permission));
+            }
+        }
+        this.wildcards = WildcardTrie.compile(patterns);
+    }
+
+    @Override
+    public Boolean checkAccess(String groupId, String permissionId) {
+        int group = groups.indexOf(groupId);
+        if (group == IdDictionary.NOT_FOUND) {
+            return false;
+        }
+        return grants(bitmapAt(groupBitmapOffsetsPosition, group), codeOf(permissionId), permissionId);
+    }
+
+    @Override
+    public Boolean checkUserAccess(Long userId, String permissionId) {
+        int user = users.indexOf(String.valueOf(userId));
+        if (user == IdDictionary.NOT_FOUND) {
+            return false;
+        }
+        int code = codeOf(permissionId);
+        IntIterator groupsOfUser = bitmapAt(userBitmapOffsetsPosition, user).getIntIterator();
+        while (groupsOfUser.hasNext()) {
+            if (grants(bitmapAt(groupBitmapOffsetsPosition, groupsOfUser.next()), code, permissionId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean grants(ImmutableRoaringBitmap granted, int code, String permissionId) {
+        if (code != IdDictionary.NOT_FOUND && granted.contains(code)) {
+            return true;
+        }
+        return wildcards.anyMatch(permissionId, granted::contains);
+    }
+
+    private int codeOf(String permissionId) {
+        int permission = permissions.indexOf(permissionId);
+        return permission == IdDictionary.NOT_FOUND ? IdDictionary.NOT_FOUND : codeOf(permission);
+    }
+
+    private int codeOf(int permission) {
+        return buffer.getInt(permissionCodesPosition + permission * Integer.BYTES);
+    }
+
+    @Override
+    public List<String> findEffectivePermissions(List<String> groupIds) {
+        List<ImmutableRoaringBitmap> bitmaps = new ArrayList<>();
+        for (String groupId : groupIds) {
+            int group = groups.indexOf(groupId);
+            if (group != IdDictionary.NOT_FOUND) {
+                bitmaps.add(bitmapAt(groupBitmapOffsetsPosition, group));
+            }
+        }
+        if (bitmaps.isEmpty()) {
+            return List.of();
+        }
+        ImmutableRoaringBitmap codes = BufferFastAggregation.or(bitmaps.iterator());
+        // the permission table is sorted, so walking it yields the result in order
+        List<String> result = new ArrayList<>();
+        for (int permission = 0; permission < permissions.size(); permission++) {
+            if (codes.contains(codeOf(permission))) {
+                result.add(permissions.valueOf(permission));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int groupCount() {
+        return groups.size();
+    }
+
+    @Override
+    public int permissionCount() {
+        return permissions.size();
+    }
+
+    // Roles are not kept in the file, groups are found by scanning the sorted group table.
+    @Override
+    public Optional<IdPage> findGroupsGranting(String permissionId, int offset, int limit) {
+        MutableRoaringBitmap codes = new MutableRoaringBitmap();
+        int code = codeOf(permissionId);
+        if (code != IdDictionary.NOT_FOUND) {
+            codes.add(code);
+        }
+        wildcards.forEachMatch(permissionId, (int wildcard) -> codes.add(wildcard));
+        if (codes.isEmpty()) {
+            return Optional.of(new IdPage(List.of(), 0));
+        }
+        List<String> page = new ArrayList<>();
+        int total = 0;
+        for (int group = 0; group < groups.size(); group++) {
+            if (ImmutableRoaringBitmap.intersects(bitmapAt(groupBitmapOffsetsPosition, group), codes)) {
+                if (total >= offset && page.size() < limit) {
+                    page.add(groups.valueOf(group));
+                }
+                total++;
+            }
+        }
+        return Optional.of(new IdPage(page, total));
+    }
+
+    private ImmutableRoaringBitmap bitmapAt(int offsetsPosition, int index) {
+        int start = buffer.getInt(offsetsPosition + index * Integer.BYTES);
+        int end = buffer.getInt(offsetsPosition + (index + 1) * Integer.BYTES);
+        return new ImmutableRoaringBitmap(buffer.slice(start, end - start));
+    }
+
+    static MappedPolicyStorage open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Policy storage file is larger than 2GB: " + file);
+            }
+            return new MappedPolicyStorage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Permission codes are the graph's dictionary indexes, so group bitmaps are written as they are.
+    static void write(Path file, String namespaceId, Long version, PolicyGraph graph) throws IOException {
+        byte[][] groupIds = utf8(graph.groupIds());
+        byte[][] permissionIds = utf8(graph.permissionIds());
+        byte[][] userIds = utf8(graph.userIds());
+        Integer[] groupOrder = MappedStringTable.sortedOrder(groupIds);
+        Integer[] permissionOrder = MappedStringTable.sortedOrder(permissionIds);
+        Integer[] userOrder = MappedStringTable.sortedOrder(userIds);
+        int[] groupPositions = new int[groupOrder.length];
+        for (int i = 0; i < groupOrder.length; i++) {
+            groupPositions[groupOrder[i]] = i;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(version);
+            byte[] namespaceIdBytes = namespaceId.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(namespaceIdBytes.length);
+            out.write(namespaceIdBytes);
+            MappedStringTable.write(out, sorted(groupIds, groupOrder));
+            MappedStringTable.write(out, sorted(permissionIds, permissionOrder));
+            for (int permission : permissionOrder) {
+                out.writeInt(permission);
+            }
+            RoaringBitmap[] groupBitmaps = new RoaringBitmap[groupOrder.length];
+            Arrays.setAll(groupBitmaps, i -> graph.groupPermissions(groupOrder[i]));
+            writeBitmaps(out, groupBitmaps, namespaceId);
+            MappedStringTable.write(out, sorted(userIds, userOrder));
+            RoaringBitmap[] userBitmaps = new RoaringBitmap[userOrder.length];
+            for (int i = 0; i < userOrder.length; i++) {
+                RoaringBitmap groupsOfUser = new RoaringBitmap();
+                graph.userGroups(userOrder[i]).forEach((int group) -> groupsOfUser.add(groupPositions[group]));
+                userBitmaps[i] = groupsOfUser;
+            }
+            writeBitmaps(out, userBitmaps, namespaceId);
+        }
+    }
+
+    // Absolute offsets of every bitmap followed by the end offset, then the bitmaps themselves.
+    private static void writeBitmaps(DataOutputStream out, RoaringBitmap[] bitmaps, String namespaceId)
+            throws IOException {
+        long position = out.size() + (bitmaps.length + 1L) * Integer.BYTES;
+        out.writeInt((int) position);
+        for (RoaringBitmap bitmap : bitmaps) {
+            position += bitmap.serializedSizeInBytes();
+            if (position > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Policy of namespace " + namespaceId + " does not fit in 2GB");
+            }
+            out.writeInt((int) position);
+        }
+        for (RoaringBitmap bitmap : bitmaps) {
+            bitmap.serialize(out);
+        }
+    }
+
+    private static byte[][] utf8(IdDictionary dictionary) {
+        byte[][] values = new byte[dictionary.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = dictionary.valueOf(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static byte[][] sorted(byte[][] values, Integer[] order) {
+        byte[][] sorted = new byte[order.length][];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = values[order[i]];
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,96 @@
+package org.ducanh.apiiam.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.entities.Namespace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Builds {@link MappedPolicyStorage} files named {@code <namespaceId>-<version>.policy} in one
+ * directory. Files of older versions are deleted once a newer one is written, snapshots still
+ * mapped by readers stay valid until they are garbage collected.
+ */
+@Slf4j
+public class MappedPolicyStorageFactory implements PolicyStorageFactory {
+
+    private static final String EXTENSION = ".policy";
+
+    private final Path directory;
+
+    public MappedPolicyStorageFactory(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public PolicyStorage build(Namespace namespace, PolicyRows rows) {
+        String namespaceId = namespace.getNamespaceId();
+        Long version = Objects.requireNonNullElse(namespace.getVersion(), 0L);
+        PolicyGraph graph = PolicyGraph.of(rows);
+        Path file = fileOf(namespaceId, version);
+        try {
+            Path tempFile = Files.createTempFile(directory, prefixOf(namespaceId), ".tmp");
+            MappedPolicyStorage.write(tempFile, namespaceId, version, graph);
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Wrote policy file: {}, groups: {}, permissions: {}, bytes: {}",
+                    file, graph.groupCount(), graph.permissionCount(), Files.size(file));
+            deleteOlderVersions(namespaceId, version);
+            return MappedPolicyStorage.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<PolicyStorage> open(Namespace namespace) {
+        Path file = fileOf(namespace.getNamespaceId(), Objects.requireNonNullElse(namespace.getVersion(), 0L));
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(MappedPolicyStorage.open(file));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can not reopen policy file: {}, rebuilding it", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private void deleteOlderVersions(String namespaceId, Long version) throws IOException {
+        String prefix = prefixOf(namespaceId);
+        DirectoryStream.Filter<Path> filter = (file) -> {
+            String name = file.getFileName().toString();
+            return name.startsWith(prefix) && name.endsWith(EXTENSION);
+        };
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, filter)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String fileVersion = name.substring(prefix.length(), name.length() - EXTENSION.length());
+                if (!fileVersion.isEmpty() && fileVersion.chars().allMatch(Character::isDigit)
+                        && Long.parseLong(fileVersion) < version) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path fileOf(String namespaceId, Long version) {
+        return directory.resolve(prefixOf(namespaceId) + version + EXTENSION);
+    }
+
+    private static String prefixOf(String namespaceId) {
+        return URLEncoder.encode(namespaceId, StandardCharsets.UTF_8) + "-";
+    }
+}
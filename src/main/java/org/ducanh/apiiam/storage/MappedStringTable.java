@@ -0,0 +1,97 @@
+package org.ducanh.apiiam.storage;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sorted UTF-8 strings laid out as {@code count, offsets[count + 1], bytes} inside a mapped file,
+ * looked up by binary search without copying them onto the heap.
+ */
+final class MappedStringTable {
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int offsetsPosition;
+    private final int bytesPosition;
+
+    MappedStringTable(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.count = buffer.getInt(position);
+        this.offsetsPosition = position + Integer.BYTES;
+        this.bytesPosition = offsetsPosition + (count + 1) * Integer.BYTES;
+    }
+
+    int size() {
+        return count;
+    }
+
+    // Position right after this table, where the next section starts.
+    int end() {
+        return bytesPosition + offset(count);
+    }
+
+    int indexOf(String value) {
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return IdDictionary.NOT_FOUND;
+    }
+
+    String valueOf(int index) {
+        byte[] bytes = new byte[offset(index + 1) - offset(index)];
+        buffer.get(bytesPosition + offset(index), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int compare(int index, byte[] key) {
+        int start = bytesPosition + offset(index);
+        int length = offset(index + 1) - offset(index);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private int offset(int index) {
+        return buffer.getInt(offsetsPosition + index * Integer.BYTES);
+    }
+
+    // values must already be sorted with Arrays::compareUnsigned.
+    static void write(DataOutput out, byte[][] values) throws IOException {
+        out.writeInt(values.length);
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] value : values) {
+            offset += value.length;
+            out.writeInt(offset);
+        }
+        for (byte[] value : values) {
+            out.write(value);
+        }
+    }
+
+    static Integer[] sortedOrder(byte[][] values) {
+        Integer[] order = new Integer[values.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(values[a], values[b]));
+        return order;
+    }
+}
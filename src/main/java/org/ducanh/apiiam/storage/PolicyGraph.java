@@ -0,0 +1,579 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.dto.events.PolicyChange;
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoded user -> group -> role -> permission graph of one namespace, where a role also
+ * includes the permissions of its child roles, transitively. Besides the edges it keeps the
+ * flattened permissions of every role and group, recomputed by {@link #freeze()} for the ones
+ * touched since the graph was created or copied with {@link #edit()}. User ids are encoded as their
+ * decimal string. Wildcard permissions are granted like any other and matched through a
+ * {@link WildcardTrie} when the exact permission is not granted.
+ */
+final class PolicyGraph {
+
+    // Fewer dirty groups are recomputed on the calling thread, a fork join task costs more than it saves.
+    static final int PARALLEL_FREEZE_THRESHOLD = 4_096;
+
+    private final IdDictionary groupIds;
+    private final IdDictionary roleIds;
+    private final IdDictionary permissionIds;
+    private final IdDictionary userIds;
+    private final CopyOnWriteBitmaps userGroups;
+    private final CopyOnWriteBitmaps groupUsers;
+    private final CopyOnWriteBitmaps groupRoles;
+    private final CopyOnWriteBitmaps roleGroups;
+    private final CopyOnWriteBitmaps rolePermissions;
+    private final CopyOnWriteBitmaps permissionRoles;
+    private final CopyOnWriteBitmaps roleChildren;
+    private final CopyOnWriteBitmaps roleParents;
+    // permissions of the role and all its descendants, the role permissions bitmap itself for leaf roles
+    private final CopyOnWriteBitmaps inheritedPermissions;
+    private final CopyOnWriteBitmaps groupPermissions;
+    private final RoaringBitmap dirtyGroups = new RoaringBitmap();
+    private final RoaringBitmap dirtyRoles = new RoaringBitmap();
+    private final RoaringBitmap addedWildcards = new RoaringBitmap();
+    private WildcardTrie wildcards;
+
+    private PolicyGraph(IdDictionary groupIds, IdDictionary roleIds, IdDictionary permissionIds,
+                        IdDictionary userIds, CopyOnWriteBitmaps userGroups, CopyOnWriteBitmaps groupUsers,
+                        CopyOnWriteBitmaps groupRoles, CopyOnWriteBitmaps roleGroups,
+                        CopyOnWriteBitmaps rolePermissions, CopyOnWriteBitmaps permissionRoles,
+                        CopyOnWriteBitmaps roleChildren, CopyOnWriteBitmaps roleParents,
+                        CopyOnWriteBitmaps inheritedPermissions, CopyOnWriteBitmaps groupPermissions,
+                        WildcardTrie wildcards) {
+        this.groupIds = groupIds;
+        this.roleIds = roleIds;
+        this.permissionIds = permissionIds;
+        this.userIds = userIds;
+        this.userGroups = userGroups;
+        this.groupUsers = groupUsers;
+        this.groupRoles = groupRoles;
+        this.roleGroups = roleGroups;
+        this.rolePermissions = rolePermissions;
+        this.permissionRoles = permissionRoles;
+        this.roleChildren = roleChildren;
+        this.roleParents = roleParents;
+        this.inheritedPermissions = inheritedPermissions;
+        this.groupPermissions = groupPermissions;
+        this.wildcards = wildcards;
+    }
+
+    static PolicyGraph empty() {
+        return withDictionaries(new IdDictionary(), new IdDictionary(), new IdDictionary(), new IdDictionary());
+    }
+
+    private static PolicyGraph withDictionaries(IdDictionary groupIds, IdDictionary roleIds,
+                                                IdDictionary permissionIds, IdDictionary userIds) {
+        return new PolicyGraph(groupIds, roleIds, permissionIds, userIds,
+                new CopyOnWriteBitmaps(), new CopyOnWriteBitmaps(), new CopyOnWriteBitmaps(),
+                new CopyOnWriteBitmaps(), new CopyOnWriteBitmaps(), new CopyOnWriteBitmaps(),
+                new CopyOnWriteBitmaps(), new CopyOnWriteBitmaps(), new CopyOnWriteBitmaps(),
+                new CopyOnWriteBitmaps(), WildcardTrie.EMPTY);
+    }
+
+    static PolicyGraph of(List<GroupRoleIdOnly> groupRoles, List<RolePermissionIdOnly> rolePermissions,
+                          List<UserGroupIdOnly> userGroups) {
+        return of(PolicyRows.of(groupRoles, rolePermissions, userGroups));
+    }
+
+    // Rows are encoded as they arrive, only the dictionaries and bitmaps are retained.
+    static PolicyGraph of(PolicyRows rows) {
+        PolicyGraph graph = empty();
+        rows.forEachRolePermission(rp -> graph.addRolePermission(rp.roleId(), rp.permissionId()));
+        rows.forEachRoleInheritance(ri -> graph.addRoleChild(ri.roleId(), ri.childRoleId()));
+        rows.forEachGroupRole(gr -> graph.addGroupRole(gr.groupId(), gr.roleId()));
+        rows.forEachUserGroup(ug -> graph.addUserGroup(String.valueOf(ug.userId()), ug.groupId()));
+        return graph.freeze();
+    }
+
+    /**
+     * Writes dictionaries in index order followed by the group roles, group permissions, role
+     * permissions, role children and user groups bitmaps, the reverse edges and the inherited
+     * permissions of roles are derived again by {@link #read(DataInput)}.
+     */
+    void write(DataOutput out) throws IOException {
+        // dictionaries are shared with newer versions and may grow meanwhile, sizes are taken once
+        int groups = groupIds.size();
+        int roles = roleIds.size();
+        int users = userIds.size();
+        writeDictionary(out, groupIds, groups);
+        writeDictionary(out, roleIds, roles);
+        writeDictionary(out, permissionIds, permissionIds.size());
+        writeDictionary(out, userIds, users);
+        for (int group = 0; group < groups; group++) {
+            groupRoles.get(group).serialize(out);
+            groupPermissions.get(group).serialize(out);
+        }
+        for (int role = 0; role < roles; role++) {
+            rolePermissions.get(role).serialize(out);
+            roleChildren.get(role).serialize(out);
+        }
+        for (int user = 0; user < users; user++) {
+            userGroups.get(user).serialize(out);
+        }
+    }
+
+    static PolicyGraph read(DataInput in) throws IOException {
+        PolicyGraph graph = withDictionaries(readDictionary(in), readDictionary(in), readDictionary(in),
+                readDictionary(in));
+        for (int group = 0; group < graph.groupIds.size(); group++) {
+            RoaringBitmap roles = readBitmap(in);
+            graph.groupRoles.set(group, roles);
+            graph.groupPermissions.set(group, readBitmap(in));
+            int member = group;
+            roles.forEach((int role) -> graph.roleGroups.edit(role).add(member));
+        }
+        for (int role = 0; role < graph.roleIds.size(); role++) {
+            RoaringBitmap permissions = readBitmap(in);
+            graph.rolePermissions.set(role, permissions);
+            int grantor = role;
+            permissions.forEach((int permission) -> graph.permissionRoles.edit(permission).add(grantor));
+            RoaringBitmap children = readBitmap(in);
+            graph.roleChildren.set(role, children);
+            children.forEach((int child) -> graph.roleParents.edit(child).add(grantor));
+        }
+        for (int user = 0; user < graph.userIds.size(); user++) {
+            RoaringBitmap groups = readBitmap(in);
+            graph.userGroups.set(user, groups);
+            int member = user;
+            groups.forEach((int group) -> graph.groupUsers.edit(group).add(member));
+        }
+        boolean fork = graph.groupIds.size() >= PARALLEL_FREEZE_THRESHOLD;
+        graph.roleGroups.optimize(fork);
+        graph.permissionRoles.optimize(fork);
+        graph.roleParents.optimize(fork);
+        graph.groupUsers.optimize(fork);
+        // group permissions were read as they are, only roles need flattening again
+        RoaringBitmap roles = new RoaringBitmap();
+        roles.add(0L, graph.roleIds.size());
+        graph.flattenRoles(roles.toArray(), fork);
+        for (int permission = 0; permission < graph.permissionIds.size(); permission++) {
+            if (WildcardTrie.isWildcard(graph.permissionIds.valueOf(permission))) {
+                graph.addedWildcards.add(permission);
+            }
+        }
+        graph.compileWildcards();
+        return graph;
+    }
+
+    private static void writeDictionary(DataOutput out, IdDictionary dictionary, int size) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeUTF(dictionary.valueOf(i));
+        }
+    }
+
+    private static IdDictionary readDictionary(DataInput in) throws IOException {
+        int size = in.readInt();
+        IdDictionary dictionary = new IdDictionary(size);
+        for (int i = 0; i < size; i++) {
+            dictionary.getOrAdd(in.readUTF());
+        }
+        return dictionary;
+    }
+
+    private static RoaringBitmap readBitmap(DataInput in) throws IOException {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.deserialize(in);
+        return bitmap;
+    }
+
+    // Copy sharing dictionaries and untouched bitmaps with this graph, which stays as it is.
+    PolicyGraph edit() {
+        return new PolicyGraph(groupIds, roleIds, permissionIds, userIds, userGroups.copy(), groupUsers.copy(),
+                groupRoles.copy(), roleGroups.copy(), rolePermissions.copy(), permissionRoles.copy(),
+                roleChildren.copy(), roleParents.copy(), inheritedPermissions.copy(), groupPermissions.copy(),
+                wildcards);
+    }
+
+    PolicyGraph freeze() {
+        return freeze(true);
+    }
+
+    /**
+     * Flattens the dirty roles and their ancestors, then recomputes the effective permissions of
+     * every group holding one of them, partitioned across the common fork join pool when parallel
+     * and there are enough of them. Everything is computed from the same edges either way, so the
+     * result does not depend on parallel.
+     */
+    PolicyGraph freeze(boolean parallel) {
+        RoaringBitmap roles = reachable(roleParents, dirtyRoles);
+        boolean fork = parallel && Math.max(roles.getCardinality(), dirtyGroups.getCardinality())
+                >= PARALLEL_FREEZE_THRESHOLD;
+        rolePermissions.optimize(fork);
+        flattenRoles(roles.toArray(), fork);
+        roles.forEach((int role) -> dirtyGroups.or(roleGroups.get(role)));
+        int[] groups = dirtyGroups.toArray();
+        fork = parallel && groups.length >= PARALLEL_FREEZE_THRESHOLD;
+        RoaringBitmap[] permissions = new RoaringBitmap[groups.length];
+        if (fork) {
+            Arrays.parallelSetAll(permissions, (i) -> effectivePermissions(groups[i]));
+        } else {
+            Arrays.setAll(permissions, (i) -> effectivePermissions(groups[i]));
+        }
+        for (int i = 0; i < groups.length; i++) {
+            groupPermissions.set(groups[i], permissions[i]);
+        }
+        dirtyGroups.clear();
+        dirtyRoles.clear();
+        compileWildcards();
+        groupRoles.optimize(fork);
+        roleGroups.optimize(fork);
+        permissionRoles.optimize(fork);
+        roleChildren.optimize(fork);
+        roleParents.optimize(fork);
+        userGroups.optimize(fork);
+        groupUsers.optimize(fork);
+        return this;
+    }
+
+    // Recompiled only when a wildcard permission was granted for the first time, deleted ones are
+    // no longer held by any group and are left in place.
+    private void compileWildcards() {
+        if (addedWildcards.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> patterns = new HashMap<>(wildcards.patterns());
+        addedWildcards.forEach((int permission) -> patterns.put(permissionIds.valueOf(permission), permission));
+        addedWildcards.clear();
+        if (patterns.size() != wildcards.patterns().size()) {
+            wildcards = WildcardTrie.compile(patterns);
+        }
+    }
+
+    private void flattenRoles(int[] roles, boolean fork) {
+        RoaringBitmap[] permissions = new RoaringBitmap[roles.length];
+        if (fork) {
+            Arrays.parallelSetAll(permissions, (i) -> inheritedPermissions(roles[i]));
+        } else {
+            Arrays.setAll(permissions, (i) -> inheritedPermissions(roles[i]));
+        }
+        for (int i = 0; i < roles.length; i++) {
+            inheritedPermissions.set(roles[i], permissions[i]);
+        }
+    }
+
+    boolean checkAccess(String groupId, String permissionId) {
+        int group = groupIds.indexOf(groupId);
+        if (group == IdDictionary.NOT_FOUND) {
+            return false;
+        }
+        return grants(groupPermissions.get(group), permissionIds.indexOf(permissionId), permissionId);
+    }
+
+    boolean checkUserAccess(String userId, String permissionId) {
+        int user = userIds.indexOf(userId);
+        if (user == IdDictionary.NOT_FOUND) {
+            return false;
+        }
+        int permission = permissionIds.indexOf(permissionId);
+        IntIterator groups = userGroups.get(user).getIntIterator();
+        while (groups.hasNext()) {
+            if (grants(groupPermissions.get(groups.next()), permission, permissionId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Exact grants are checked first, the trie is only walked when the namespace has wildcards.
+    private boolean grants(RoaringBitmap granted, int permission, String permissionId) {
+        if (permission != IdDictionary.NOT_FOUND && granted.contains(permission)) {
+            return true;
+        }
+        return wildcards.anyMatch(permissionId, granted::contains);
+    }
+
+    void apply(PolicyChange change) {
+        switch (change.type()) {
+            case GROUP_ROLES_ADDED -> change.targetIds().forEach(roleId -> addGroupRole(change.subjectId(), roleId));
+            case GROUP_ROLES_REMOVED -> change.targetIds().forEach(roleId -> removeGroupRole(change.subjectId(), roleId));
+            case ROLE_PERMISSIONS_ADDED -> change.targetIds()
+                    .forEach(permissionId -> addRolePermission(change.subjectId(), permissionId));
+            case ROLE_PERMISSIONS_REMOVED -> change.targetIds()
+                    .forEach(permissionId -> removeRolePermission(change.subjectId(), permissionId));
+            case ROLE_CHILDREN_ADDED -> change.targetIds().forEach(childId -> addRoleChild(change.subjectId(), childId));
+            case ROLE_CHILDREN_REMOVED -> change.targetIds()
+                    .forEach(childId -> removeRoleChild(change.subjectId(), childId));
+            case USER_GROUPS_ADDED -> change.targetIds().forEach(groupId -> addUserGroup(change.subjectId(), groupId));
+            case USER_GROUPS_REMOVED -> change.targetIds()
+                    .forEach(groupId -> removeUserGroup(change.subjectId(), groupId));
+            case USER_DELETED -> deleteUser(change.subjectId());
+            case GROUP_DELETED -> deleteGroup(change.subjectId());
+            case ROLE_DELETED -> deleteRole(change.subjectId());
+            case PERMISSION_DELETED -> deletePermission(change.subjectId());
+        }
+    }
+
+    void addGroupRole(String groupId, String roleId) {
+        int group = groupIds.getOrAdd(groupId);
+        int role = roleIds.getOrAdd(roleId);
+        groupRoles.edit(group).add(role);
+        roleGroups.edit(role).add(group);
+        dirtyGroups.add(group);
+    }
+
+    void addRolePermission(String roleId, String permissionId) {
+        int role = roleIds.getOrAdd(roleId);
+        int permission = permissionIds.getOrAdd(permissionId);
+        rolePermissions.edit(role).add(permission);
+        permissionRoles.edit(permission).add(role);
+        dirtyRoles.add(role);
+        if (WildcardTrie.isWildcard(permissionId)) {
+            addedWildcards.add(permission);
+        }
+    }
+
+    void addRoleChild(String roleId, String childRoleId) {
+        int role = roleIds.getOrAdd(roleId);
+        int child = roleIds.getOrAdd(childRoleId);
+        roleChildren.edit(role).add(child);
+        roleParents.edit(child).add(role);
+        dirtyRoles.add(role);
+    }
+
+    private void removeRoleChild(String roleId, String childRoleId) {
+        int role = roleIds.indexOf(roleId);
+        int child = roleIds.indexOf(childRoleId);
+        if (role == IdDictionary.NOT_FOUND || child == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        roleChildren.edit(role).remove(child);
+        roleParents.edit(child).remove(role);
+        dirtyRoles.add(role);
+    }
+
+    void addUserGroup(String userId, String groupId) {
+        int user = userIds.getOrAdd(userId);
+        int group = groupIds.getOrAdd(groupId);
+        userGroups.edit(user).add(group);
+        groupUsers.edit(group).add(user);
+    }
+
+    private void removeUserGroup(String userId, String groupId) {
+        int user = userIds.indexOf(userId);
+        int group = groupIds.indexOf(groupId);
+        if (user == IdDictionary.NOT_FOUND || group == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        userGroups.edit(user).remove(group);
+        groupUsers.edit(group).remove(user);
+    }
+
+    private void deleteUser(String userId) {
+        int user = userIds.indexOf(userId);
+        if (user == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        userGroups.get(user).forEach((int group) -> groupUsers.edit(group).remove(user));
+        userGroups.set(user, new RoaringBitmap());
+    }
+
+    private void removeGroupRole(String groupId, String roleId) {
+        int group = groupIds.indexOf(groupId);
+        int role = roleIds.indexOf(roleId);
+        if (group == IdDictionary.NOT_FOUND || role == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        groupRoles.edit(group).remove(role);
+        roleGroups.edit(role).remove(group);
+        dirtyGroups.add(group);
+    }
+
+    private void removeRolePermission(String roleId, String permissionId) {
+        int role = roleIds.indexOf(roleId);
+        int permission = permissionIds.indexOf(permissionId);
+        if (role == IdDictionary.NOT_FOUND || permission == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        rolePermissions.edit(role).remove(permission);
+        permissionRoles.edit(permission).remove(role);
+        dirtyRoles.add(role);
+    }
+
+    private void deleteGroup(String groupId) {
+        int group = groupIds.indexOf(groupId);
+        if (group == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        groupRoles.get(group).forEach((int role) -> roleGroups.edit(role).remove(group));
+        groupRoles.set(group, new RoaringBitmap());
+        groupUsers.get(group).forEach((int user) -> userGroups.edit(user).remove(group));
+        groupUsers.set(group, new RoaringBitmap());
+        dirtyGroups.add(group);
+    }
+
+    private void deleteRole(String roleId) {
+        int role = roleIds.indexOf(roleId);
+        if (role == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        RoaringBitmap groups = roleGroups.get(role);
+        groups.forEach((int group) -> groupRoles.edit(group).remove(role));
+        dirtyGroups.or(groups);
+        roleGroups.set(role, new RoaringBitmap());
+        rolePermissions.get(role).forEach((int permission) -> permissionRoles.edit(permission).remove(role));
+        rolePermissions.set(role, new RoaringBitmap());
+        RoaringBitmap parents = roleParents.get(role);
+        parents.forEach((int parent) -> roleChildren.edit(parent).remove(role));
+        dirtyRoles.or(parents);
+        roleParents.set(role, new RoaringBitmap());
+        roleChildren.get(role).forEach((int child) -> roleParents.edit(child).remove(role));
+        roleChildren.set(role, new RoaringBitmap());
+        dirtyRoles.add(role);
+    }
+
+    private void deletePermission(String permissionId) {
+        int permission = permissionIds.indexOf(permissionId);
+        if (permission == IdDictionary.NOT_FOUND) {
+            return;
+        }
+        RoaringBitmap roles = permissionRoles.get(permission);
+        roles.forEach((int role) -> rolePermissions.edit(role).remove(permission));
+        dirtyRoles.or(roles);
+        permissionRoles.set(permission, new RoaringBitmap());
+    }
+
+    IdPage rolesGranting(String permissionId, int offset, int limit) {
+        return page(rolesGranting(permissionId), roleIds, offset, limit);
+    }
+
+    IdPage groupsGranting(String permissionId, int offset, int limit) {
+        RoaringBitmap groups = new RoaringBitmap();
+        rolesGranting(permissionId).forEach((int role) -> groups.or(roleGroups.get(role)));
+        return page(groups, groupIds, offset, limit);
+    }
+
+    // Roles holding the permission or a wildcard matching it, directly or through one of their descendants.
+    private RoaringBitmap rolesGranting(String permissionId) {
+        RoaringBitmap roles = new RoaringBitmap();
+        int permission = permissionIds.indexOf(permissionId);
+        if (permission != IdDictionary.NOT_FOUND) {
+            roles.or(permissionRoles.get(permission));
+        }
+        wildcards.forEachMatch(permissionId, (int wildcard) -> roles.or(permissionRoles.get(wildcard)));
+        return reachable(roleParents, roles);
+    }
+
+    List<String> effectivePermissions(List<String> groupIdList) {
+        return page(groupSetPermissions(groupIdList), permissionIds, 0, Integer.MAX_VALUE).ids();
+    }
+
+    // Union of the effective permissions of the groups, unknown groups grant nothing.
+    RoaringBitmap groupSetPermissions(Collection<String> groupIdSet) {
+        RoaringBitmap permissions = new RoaringBitmap();
+        for (String groupId : groupIdSet) {
+            int group = groupIds.indexOf(groupId);
+            if (group != IdDictionary.NOT_FOUND) {
+                permissions.or(groupPermissions.get(group));
+            }
+        }
+        return permissions;
+    }
+
+    // Whether permissions returned by groupSetPermissions grant the permission.
+    boolean grants(RoaringBitmap granted, String permissionId) {
+        return grants(granted, permissionIds.indexOf(permissionId), permissionId);
+    }
+
+    // Pages through ids in the sorted order of their values.
+    private static IdPage page(RoaringBitmap ids, IdDictionary dictionary, int offset, int limit) {
+        IdDictionary.Ranking ranking = dictionary.ranking();
+        RoaringBitmap ranks = new RoaringBitmap();
+        ids.forEach((int id) -> ranks.add(ranking.rankOf()[id]));
+        int total = ranks.getCardinality();
+        List<String> page = new ArrayList<>();
+        for (int i = offset; i < total && i - offset < limit; i++) {
+            page.add(dictionary.valueOf(ranking.idAt()[ranks.select(i)]));
+        }
+        return new IdPage(page, total);
+    }
+
+    private RoaringBitmap effectivePermissions(int group) {
+        RoaringBitmap permissions = new RoaringBitmap();
+        groupRoles.get(group).forEach((int role) -> permissions.or(inheritedPermissions.get(role)));
+        permissions.runOptimize();
+        return permissions;
+    }
+
+    // Leaf roles share their own permissions bitmap, only roles with children get a merged copy.
+    private RoaringBitmap inheritedPermissions(int role) {
+        RoaringBitmap children = roleChildren.get(role);
+        if (children.isEmpty()) {
+            return rolePermissions.get(role);
+        }
+        RoaringBitmap permissions = rolePermissions.get(role).clone();
+        reachable(roleChildren, children).forEach((int descendant) -> permissions.or(rolePermissions.get(descendant)));
+        permissions.runOptimize();
+        return permissions;
+    }
+
+    // The given ids and every id reached from them through edges, terminates on cycles too.
+    private static RoaringBitmap reachable(CopyOnWriteBitmaps edges, RoaringBitmap from) {
+        RoaringBitmap reached = from.clone();
+        RoaringBitmap frontier = from;
+        while (!frontier.isEmpty()) {
+            RoaringBitmap next = new RoaringBitmap();
+            frontier.forEach((int id) -> next.or(edges.get(id)));
+            next.andNot(reached);
+            reached.or(next);
+            frontier = next;
+        }
+        return reached;
+    }
+
+    IdDictionary groupIds() {
+        return groupIds;
+    }
+
+    IdDictionary permissionIds() {
+        return permissionIds;
+    }
+
+    IdDictionary userIds() {
+        return userIds;
+    }
+
+    // Read only view, never mutate the returned bitmap.
+    RoaringBitmap groupPermissions(int group) {
+        return groupPermissions.get(group);
+    }
+
+    // Read only view, never mutate the returned bitmap.
+    RoaringBitmap userGroups(int user) {
+        return userGroups.get(user);
+    }
+
+    int groupCount() {
+        return groupIds.size();
+    }
+
+    int permissionCount() {
+        return permissionIds.size();
+    }
+
+    long sizeInBytes() {
+        return groupIds.sizeInBytes() + roleIds.sizeInBytes() + permissionIds.sizeInBytes() + userIds.sizeInBytes()
+                + userGroups.sizeInBytes() + groupUsers.sizeInBytes() + groupRoles.sizeInBytes()
+                + roleGroups.sizeInBytes() + rolePermissions.sizeInBytes() + permissionRoles.sizeInBytes()
+                + roleChildren.sizeInBytes() + roleParents.sizeInBytes()
+                + inheritedPermissions.sizeInBytesNotSharedWith(rolePermissions) + groupPermissions.sizeInBytes()
+                + wildcards.sizeInBytes();
+    }
+}
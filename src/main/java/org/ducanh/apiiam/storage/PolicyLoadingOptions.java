@@ -0,0 +1,16 @@
+package org.ducanh.apiiam.storage;
+
+/**
+ * How {@link PolicyStorageManagement} keeps namespaces in memory. Eager loads every namespace at
+ * startup and keeps it. Lazy loads a namespace on its first access and evicts the least recently
+ * used ones once more than maxNamespaces are resident or they retain more than maxBytes,
+ * a budget of 0 means unbounded.
+ */
+public record PolicyLoadingOptions(boolean lazy, int maxNamespaces, long maxBytes) {
+
+    public static final PolicyLoadingOptions EAGER = new PolicyLoadingOptions(false, 0, 0);
+
+    boolean overBudget(int namespaces, long bytes) {
+        return (maxNamespaces > 0 && namespaces > maxNamespaces) || (maxBytes > 0 && bytes > maxBytes);
+    }
+}
@@ -0,0 +1,81 @@
+package org.ducanh.apiiam.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the policy engine tagged by namespace. The first maxNamespaceTags namespaces seen get
+ * their own series, later ones share the {@value #OTHER_NAMESPACES} series, so the registry stays
+ * bounded whatever the number of namespaces.
+ */
+public class PolicyMetrics {
+
+    public static final String NAMESPACE_TAG = "namespace";
+    // not a valid namespace id, cannot clash with a tagged namespace
+    public static final String OTHER_NAMESPACES = "_other";
+
+    private final MeterRegistry registry;
+    private final int maxNamespaceTags;
+    private final Map<String, String> namespaceTags = new ConcurrentHashMap<>();
+    // [deny, allow] per namespace tag, looked up on every check
+    private final Map<String, Timer[]> checkTimers = new ConcurrentHashMap<>();
+
+    public PolicyMetrics(MeterRegistry registry, int maxNamespaceTags) {
+        this.registry = registry;
+        this.maxNamespaceTags = maxNamespaceTags;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public String namespaceTag(String namespaceId) {
+        String tag = namespaceTags.get(namespaceId);
+        if (tag != null) {
+            return tag;
+        }
+        synchronized (namespaceTags) {
+            if (namespaceTags.size() >= maxNamespaceTags) {
+                return OTHER_NAMESPACES;
+            }
+            return namespaceTags.computeIfAbsent(namespaceId, (id) -> id);
+        }
+    }
+
+    boolean isTagged(String namespaceId) {
+        return namespaceTags.containsKey(namespaceId);
+    }
+
+    public void recordCheck(String namespaceId, boolean allowed, long nanos) {
+        Timer[] timers = checkTimers.computeIfAbsent(namespaceTag(namespaceId), (tag) -> new Timer[]{
+                checkTimer(tag, "deny"), checkTimer(tag, "allow")});
+        timers[allowed ? 1 : 0].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer checkTimer(String tag, String decision) {
+        return Timer.builder("policy.check.duration")
+                .description("Check access latency, counted per decision")
+                .tag(NAMESPACE_TAG, tag)
+                .tag("decision", decision)
+                .register(registry);
+    }
+
+    void recordRebuild(String namespaceId, long rows, long nanos) {
+        String tag = namespaceTag(namespaceId);
+        Timer.builder("policy.rebuild.duration")
+                .description("Time to load a namespace from the database and publish it")
+                .tag(NAMESPACE_TAG, tag)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("policy.rebuild.rows")
+                .description("Rows loaded from the database per rebuild")
+                .tag(NAMESPACE_TAG, tag)
+                .register(registry)
+                .record(rows);
+    }
+}
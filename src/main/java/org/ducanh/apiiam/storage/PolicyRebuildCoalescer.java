@@ -0,0 +1,69 @@
+package org.ducanh.apiiam.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the rebuilds of a namespace one at a time. Requests arriving while a rebuild is waiting or
+ * running collapse into one follow up rebuild, which reads the namespace at its latest version.
+ * A rebuild starts debounce after it was first requested, so a burst of changes shares it.
+ */
+@Slf4j
+final class PolicyRebuildCoalescer {
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final Duration debounce;
+    private final Consumer<String> rebuild;
+
+    PolicyRebuildCoalescer(Executor executor, Duration debounce, Consumer<String> rebuild) {
+        this.executor = executor;
+        this.debounce = debounce;
+        this.rebuild = rebuild;
+    }
+
+    void request(String namespaceId) {
+        AtomicInteger pending = requests.computeIfAbsent(namespaceId, (id) -> new AtomicInteger());
+        if (pending.getAndIncrement() == 0) {
+            schedule(namespaceId, pending);
+        }
+    }
+
+    private void schedule(String namespaceId, AtomicInteger pending) {
+        Runnable submit = () -> {
+            try {
+                executor.execute(() -> drain(namespaceId, pending));
+            } catch (RejectedExecutionException e) {
+                // the next change of the namespace requests it again
+                log.error("Rejected rebuild of namespace: {}, dropping {} requests", namespaceId, pending.get(), e);
+                pending.set(0);
+            }
+        };
+        if (debounce.isZero() || debounce.isNegative()) {
+            submit.run();
+        } else {
+            CompletableFuture.delayedExecutor(debounce.toMillis(), TimeUnit.MILLISECONDS).execute(submit);
+        }
+    }
+
+    private void drain(String namespaceId, AtomicInteger pending) {
+        int served = pending.get();
+        try {
+            rebuild.accept(namespaceId);
+        } catch (RuntimeException e) {
+            log.error("Failed rebuilding policy of namespace: {}", namespaceId, e);
+        }
+        if (pending.addAndGet(-served) > 0) {
+            schedule(namespaceId, pending);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.RoleInheritanceIdOnly;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Edges of one namespace handed to a {@link PolicyStorageFactory} row by row, so a build never
+ * needs the whole namespace as lists. Each kind of row is read once.
+ */
+public interface PolicyRows {
+
+    void forEachGroupRole(Consumer<GroupRoleIdOnly> action);
+
+    void forEachRolePermission(Consumer<RolePermissionIdOnly> action);
+
+    void forEachUserGroup(Consumer<UserGroupIdOnly> action);
+
+    // Flat namespaces have no role hierarchy.
+    default void forEachRoleInheritance(Consumer<RoleInheritanceIdOnly> action) {
+    }
+
+    static PolicyRows of(List<GroupRoleIdOnly> groupRoles, List<RolePermissionIdOnly> rolePermissions,
+                         List<UserGroupIdOnly> userGroups) {
+        return of(groupRoles, rolePermissions, userGroups, List.of());
+    }
+
+    static PolicyRows of(List<GroupRoleIdOnly> groupRoles, List<RolePermissionIdOnly> rolePermissions,
+                         List<UserGroupIdOnly> userGroups, List<RoleInheritanceIdOnly> roleInheritances) {
+        return new PolicyRows() {
+            @Override
+            public void forEachGroupRole(Consumer<GroupRoleIdOnly> action) {
+                groupRoles.forEach(action);
+            }
+
+            @Override
+            public void forEachRolePermission(Consumer<RolePermissionIdOnly> action) {
+                rolePermissions.forEach(action);
+            }
+
+            @Override
+            public void forEachUserGroup(Consumer<UserGroupIdOnly> action) {
+                userGroups.forEach(action);
+            }
+
+            @Override
+            public void forEachRoleInheritance(Consumer<RoleInheritanceIdOnly> action) {
+                roleInheritances.forEach(action);
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package org.ducanh.apiiam.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Published PolicyStorage of one namespace. Readers never lock, a new snapshot is built on the
+ * side and swapped in with a single compare and set that never replaces a newer version.
+ */
+final class PolicySlot {
+
+    private final AtomicReference<PolicyStorage> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Void>> nextPublish =
+            new AtomicReference<>(new CompletableFuture<>());
+    private volatile long lastAccessNanos = System.nanoTime();
+
+    PolicyStorage get() {
+        return current.get();
+    }
+
+    // Same as get, also marks the namespace as recently used for eviction.
+    PolicyStorage access() {
+        lastAccessNanos = System.nanoTime();
+        return current.get();
+    }
+
+    long lastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    boolean publish(PolicyStorage next) {
+        while (true) {
+            PolicyStorage published = current.get();
+            if (published != null && published.getVersion() > next.getVersion()) {
+                return false;
+            }
+            if (current.compareAndSet(published, next)) {
+                signalPublish();
+                return true;
+            }
+        }
+    }
+
+    // Publishes a snapshot derived from expected, fails when another one was published meanwhile.
+    boolean publish(PolicyStorage expected, PolicyStorage next) {
+        if (current.compareAndSet(expected, next)) {
+            signalPublish();
+            return true;
+        }
+        return false;
+    }
+
+    // Completed by the next publish. Take it before reading the current version, so no publish is missed.
+    CompletableFuture<Void> nextPublish() {
+        return nextPublish.get();
+    }
+
+    private void signalPublish() {
+        nextPublish.getAndSet(new CompletableFuture<>()).complete(null);
+    }
+}
@@ -0,0 +1,100 @@
+package org.ducanh.apiiam.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ducanh.apiiam.entities.Namespace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local binary snapshots of {@link BitmapPolicyStorage}, one {@code <namespaceId>.snapshot} file
+ * per namespace holding its latest saved version. A snapshot is only loaded when its version
+ * equals the namespace version in the database.
+ */
+@Slf4j
+public class PolicySnapshotStore {
+
+    private static final int MAGIC = 0x50534E31;
+    private static final int FORMAT = 3;
+    private static final String EXTENSION = ".snapshot";
+
+    private final Path directory;
+    private final Map<String, Long> savedVersions = new ConcurrentHashMap<>();
+
+    public PolicySnapshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Optional<BitmapPolicyStorage> load(Namespace namespace) {
+        Path file = fileOf(namespace.getNamespaceId());
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        long version = Objects.requireNonNullElse(namespace.getVersion(), 0L);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                log.warn("Ignore snapshot with unsupported format: {}", file);
+                return Optional.empty();
+            }
+            long snapshotVersion = in.readLong();
+            if (snapshotVersion != version) {
+                log.info("Snapshot of namespace: {} is at version: {}, database version: {}",
+                        namespace.getNamespaceId(), snapshotVersion, version);
+                return Optional.empty();
+            }
+            BitmapPolicyStorage policyStorage = BitmapPolicyStorage.read(in);
+            savedVersions.put(policyStorage.getNamespaceId(), policyStorage.getVersion());
+            return Optional.of(policyStorage);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can not load snapshot: {}, rebuilding it", file, e);
+            return Optional.empty();
+        }
+    }
+
+    public void save(BitmapPolicyStorage policyStorage) {
+        String namespaceId = policyStorage.getNamespaceId();
+        if (Objects.equals(savedVersions.get(namespaceId), policyStorage.getVersion())) {
+            return;
+        }
+        Path file = fileOf(namespaceId);
+        try {
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                // duplicated ahead of the body so a stale snapshot is skipped without reading it
+                out.writeLong(policyStorage.getVersion());
+                policyStorage.write(out);
+            }
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            savedVersions.put(namespaceId, policyStorage.getVersion());
+            log.info("Saved snapshot of namespace: {}, version: {}, bytes: {}",
+                    namespaceId, policyStorage.getVersion(), Files.size(file));
+        } catch (IOException e) {
+            log.warn("Can not save snapshot of namespace: {}", namespaceId, e);
+        }
+    }
+
+    private Path fileOf(String namespaceId) {
+        return directory.resolve(URLEncoder.encode(namespaceId, StandardCharsets.UTF_8) + EXTENSION);
+    }
+}
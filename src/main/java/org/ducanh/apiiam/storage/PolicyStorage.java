@@ -1,44 +1,66 @@
 package org.ducanh.apiiam.storage;
 
+import org.ducanh.apiiam.dto.events.PolicyChange;
 
-import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
-import org.ducanh.apiiam.entities.GroupRoleIdOnly;
-import org.ducanh.apiiam.entities.Namespace;
-import org.ducanh.apiiam.entities.RolePermissionIdOnly;
-
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-
-@Slf4j
-public class PolicyStorage {
-    // TODO: change to ChronicleMap
-    private final Map<String, Set<String>> mapGroupIdToSetPermissionId;
-
-    @Getter
-    private final String namespaceId;
-    @Getter
-    private final Long version;
-
-    public PolicyStorage(Namespace namespace, List<GroupRoleIdOnly> groupRoles,
-                         List<RolePermissionIdOnly> rolePermissions) {
-        Map<String, List<String>> mapRoleToPermission = rolePermissions.stream()
-                .collect(Collectors.groupingBy(RolePermissionIdOnly::roleId,
-                        Collectors.mapping(RolePermissionIdOnly::permissionId, Collectors.toList())));
-        mapGroupIdToSetPermissionId = groupRoles.stream().collect(Collectors
-                .groupingBy(GroupRoleIdOnly::groupId,
-                        Collectors.flatMapping(
-                                gr -> mapRoleToPermission.get(gr.roleId()).stream(), Collectors.toSet())));
-        this.namespaceId = namespace.getNamespaceId();
-        this.version = namespace.getVersion();
+import java.util.Optional;
+
+public interface PolicyStorage {
+
+    String getNamespaceId();
+
+    Long getVersion();
+
+    Boolean checkAccess(String groupId, String permissionId);
+
+    // Whether any of the groups grants the permission.
+    default Boolean checkAccess(List<String> groupIds, String permissionId) {
+        for (String groupId : groupIds) {
+            if (checkAccess(groupId, permissionId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Resolves the groups of the user from the membership index of this namespace.
+    Boolean checkUserAccess(Long userId, String permissionId);
+
+    // Roles holding the permission or a wildcard matching it, directly or through one of their
+    // descendants, sorted by id. Empty when the engine does not index them.
+    default Optional<IdPage> findRolesGranting(String permissionId, int offset, int limit) {
+        return Optional.empty();
+    }
+
+    // Groups holding one of the roles above, so granted the permission directly, by wildcard or
+    // by inheritance, sorted by id. Empty when the engine does not index them.
+    default Optional<IdPage> findGroupsGranting(String permissionId, int offset, int limit) {
+        return Optional.empty();
+    }
+
+    // Union of the permissions granted to the groups, sorted by id. Unknown groups grant nothing.
+    List<String> findEffectivePermissions(List<String> groupIds);
+
+    // Estimated heap retained by this storage, used to evict namespaces under a memory budget.
+    default long sizeInBytes() {
+        return 0;
+    }
+
+    // Sizes reported as metrics, 0 when the engine does not count them.
+    default int groupCount() {
+        return 0;
+    }
+
+    default int permissionCount() {
+        return 0;
     }
 
-    public Boolean checkAccess(String groupId, String permissionId) {
-        return mapGroupIdToSetPermissionId.getOrDefault(groupId, Collections.emptySet())
-                .contains(permissionId);
+    /**
+     * Returns a new storage at {@code version} with the changes applied on top of this one, this
+     * storage is left untouched. Empty when the engine cannot apply them, callers then rebuild.
+     */
+    default Optional<PolicyStorage> applyChanges(List<PolicyChange> changes, Long version) {
+        return Optional.empty();
     }
 
 }
@@ -0,0 +1,32 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+
+import java.util.List;
+import java.util.Optional;
+
+@FunctionalInterface
+public interface PolicyStorageFactory {
+
+    PolicyStorage build(Namespace namespace, PolicyRows rows);
+
+    default PolicyStorage build(Namespace namespace, List<GroupRoleIdOnly> groupRoles,
+                                List<RolePermissionIdOnly> rolePermissions, List<UserGroupIdOnly> userGroups) {
+        return build(namespace, PolicyRows.of(groupRoles, rolePermissions, userGroups));
+    }
+
+    /**
+     * Reopens a storage persisted by a previous run at the namespace's current version, empty when
+     * there is none and the namespace has to be built from the database.
+     */
+    default Optional<PolicyStorage> open(Namespace namespace) {
+        return Optional.empty();
+    }
+
+    // Saves the storage so a later open can reuse it, no-op for engines that persist while building.
+    default void persist(PolicyStorage policyStorage) {
+    }
+}
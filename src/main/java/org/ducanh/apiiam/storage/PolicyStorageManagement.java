@@ -1,72 +1,400 @@
 package org.ducanh.apiiam.storage;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import lombok.extern.slf4j.Slf4j;
-import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.dto.events.NamespaceChangeEvent;
+import org.ducanh.apiiam.dto.events.PolicyChange;
 import org.ducanh.apiiam.entities.Namespace;
-import org.ducanh.apiiam.entities.RolePermissionIdOnly;
 import org.ducanh.apiiam.repositories.GroupRoleRepository;
 import org.ducanh.apiiam.repositories.NamespaceRepository;
+import org.ducanh.apiiam.repositories.RoleInheritanceRepository;
 import org.ducanh.apiiam.repositories.RolePermissionRepository;
+import org.ducanh.apiiam.repositories.UserGroupRepository;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionOperations;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 public class PolicyStorageManagement {
 
-    private final Map<String, PolicyStorage> policies = new HashMap<>();
+    private final Map<String, PolicySlot> policies = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> loadings = new ConcurrentHashMap<>();
+    // latest version of each namespace seen in the database or in a change event, for the lag gauge
+    private final Map<String, Long> databaseVersions = new ConcurrentHashMap<>();
+    private final Set<String> gaugedNamespaceTags = ConcurrentHashMap.newKeySet();
     private final GroupRoleRepository groupRoleRepository;
     private final RolePermissionRepository rolePermissionRepository;
+    private final UserGroupRepository userGroupRepository;
+    private final RoleInheritanceRepository roleInheritanceRepository;
     private final NamespaceRepository namespaceRepository;
     private final ThreadPoolTaskExecutor commonThreadPool;
+    private final PolicyStorageFactory policyStorageFactory;
+    private final PolicyLoadingOptions loadingOptions;
+    private final TransactionOperations readOnlyTransaction;
+    private final PolicyRebuildCoalescer rebuilds;
+    private final PolicyMetrics metrics;
+    private final Counter eventsReceived;
+    private final Counter deltasApplied;
+    private final Counter rebuildsRequested;
+    private final Counter rebuildsExecuted;
+    private final Counter versionWaits;
 
     public PolicyStorageManagement(
             GroupRoleRepository groupRoleRepository,
             RolePermissionRepository rolePermissionRepository,
+            UserGroupRepository userGroupRepository,
+            RoleInheritanceRepository roleInheritanceRepository,
             NamespaceRepository namespaceRepository,
-            ThreadPoolTaskExecutor threadPoolTaskExecutor
+            ThreadPoolTaskExecutor threadPoolTaskExecutor,
+            PolicyStorageFactory policyStorageFactory,
+            PolicyLoadingOptions loadingOptions,
+            PolicyMetrics metrics,
+            Duration rebuildDebounce,
+            TransactionOperations readOnlyTransaction
     ) {
         this.groupRoleRepository = groupRoleRepository;
         this.rolePermissionRepository = rolePermissionRepository;
+        this.userGroupRepository = userGroupRepository;
+        this.roleInheritanceRepository = roleInheritanceRepository;
         this.namespaceRepository = namespaceRepository;
         this.commonThreadPool = threadPoolTaskExecutor;
-        initiatingPolicy();
+        this.policyStorageFactory = policyStorageFactory;
+        this.loadingOptions = loadingOptions;
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.rebuilds = new PolicyRebuildCoalescer(threadPoolTaskExecutor, rebuildDebounce, this::rebuild);
+        this.metrics = metrics;
+        this.eventsReceived = Counter.builder("policy.change.events")
+                .description("Namespace change events received")
+                .register(metrics.registry());
+        this.deltasApplied = Counter.builder("policy.change.deltas")
+                .description("Namespace change events applied as a delta on the published policy")
+                .register(metrics.registry());
+        this.rebuildsRequested = Counter.builder("policy.rebuilds.requested")
+                .description("Namespace change events that needed a rebuild")
+                .register(metrics.registry());
+        this.rebuildsExecuted = Counter.builder("policy.rebuilds.executed")
+                .description("Rebuilds executed for change events after coalescing")
+                .register(metrics.registry());
+        this.versionWaits = Counter.builder("policy.version.waits")
+                .description("Reads that waited for a namespace version not yet published on this node")
+                .register(metrics.registry());
+        if (!loadingOptions.lazy()) {
+            initiatingPolicy(true);
+        }
     }
 
     public void initiatingPolicy() {
+        initiatingPolicy(false);
+    }
+
+    // reopen: reuse what the factory persisted at the current namespace version instead of rebuilding.
+    private void initiatingPolicy(boolean reopen) {
+        long start = System.nanoTime();
         List<Namespace> namespaces = namespaceRepository.findAll();
+        AtomicInteger reopened = new AtomicInteger();
         List<CompletableFuture<Void>> futures = namespaces.stream()
-                .map((namespace) -> CompletableFuture.runAsync(() -> initiatingPolicy(namespace), commonThreadPool))
+                .map((namespace) -> CompletableFuture.runAsync(() -> {
+                    Optional<PolicyStorage> policyStorage = reopen ? policyStorageFactory.open(namespace) : Optional.empty();
+                    if (policyStorage.isPresent()) {
+                        reopened.incrementAndGet();
+                        databaseVersions.merge(namespace.getNamespaceId(),
+                                Objects.requireNonNullElse(namespace.getVersion(), 0L), Math::max);
+                        publish(policyStorage.get());
+                    } else {
+                        initiatingPolicy(namespace);
+                    }
+                }, commonThreadPool))
                 .toList();
         try {
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        log.info("Finish init policy for all namespaces, number of namespaces: {}", namespaces.size());
+        log.info("Finish init policy for all namespaces, number of namespaces: {}, reopened: {}, rebuilt: {}, took: {} ms",
+                namespaces.size(), reopened.get(), namespaces.size() - reopened.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     private void initiatingPolicy(Namespace namespace) {
-        String namespaceIdIntern = namespace.getNamespaceId().intern();
-        log.info("Initiating policy for namespace: {}", namespaceIdIntern);
-        synchronized (namespaceIdIntern) {
-            List<GroupRoleIdOnly> groupRoleIdList = groupRoleRepository.findAllByNamespaceId(namespaceIdIntern);
-            List<RolePermissionIdOnly> rolePermissionIdOnlyList = rolePermissionRepository.findAllByNamespaceId(namespaceIdIntern);
-            policies.put(namespaceIdIntern, new PolicyStorage(namespace, groupRoleIdList, rolePermissionIdOnlyList));
-            log.info("Succeed rebuilding policy for namespace: {}", namespace);
+        String namespaceId = namespace.getNamespaceId();
+        log.info("Initiating policy for namespace: {}", namespaceId);
+        long start = System.nanoTime();
+        RepositoryPolicyRows rows = new RepositoryPolicyRows(namespaceId, groupRoleRepository,
+                rolePermissionRepository, userGroupRepository, roleInheritanceRepository, readOnlyTransaction);
+        databaseVersions.merge(namespaceId, Objects.requireNonNullElse(namespace.getVersion(), 0L), Math::max);
+        PolicyStorage policyStorage = policyStorageFactory.build(namespace, rows);
+        if (publish(policyStorage)) {
+            policyStorageFactory.persist(policyStorage);
+        }
+        metrics.recordRebuild(namespaceId, rows.rowsRead(), System.nanoTime() - start);
+    }
+
+    private boolean publish(PolicyStorage policyStorage) {
+        if (slotOf(policyStorage.getNamespaceId()).publish(policyStorage)) {
+            registerGauges(metrics.namespaceTag(policyStorage.getNamespaceId()));
+            log.info("Succeed publishing policy for namespace: {}, version: {}",
+                    policyStorage.getNamespaceId(), policyStorage.getVersion());
+            return true;
         }
+        log.info("Discard policy of namespace: {}, version: {} is older than the published one",
+                policyStorage.getNamespaceId(), policyStorage.getVersion());
+        return false;
+    }
+
+    // Called on shutdown so the next start reopens the versions reached through deltas too.
+    public void close() {
+        policies.values().stream()
+                .map(PolicySlot::get)
+                .filter(Objects::nonNull)
+                .forEach(policyStorageFactory::persist);
     }
 
     public void reloadPolicy(String namespaceId) {
         Namespace namespace = namespaceRepository.findByNamespaceId(namespaceId);
+        if (Objects.isNull(namespace)) {
+            log.info("Skip reloading policy, namespace: {} does not exist", namespaceId);
+            return;
+        }
+        initiatingPolicy(namespace);
+    }
+
+    public void applyChanges(NamespaceChangeEvent event) {
+        String namespaceId = event.namespaceId();
+        List<PolicyChange> changes = Objects.requireNonNullElse(event.changes(), List.of());
+        eventsReceived.increment();
+        if (Objects.nonNull(event.version())) {
+            databaseVersions.merge(namespaceId, event.version(), Math::max);
+        }
+        if (loadingOptions.lazy()) {
+            // a load in flight may have read the previous version, apply the change on top of it
+            Optional.ofNullable(loadings.get(namespaceId)).ifPresent(loading -> loading.exceptionally(e -> null).join());
+            if (Objects.isNull(getLoadedPolicyStorage(namespaceId))) {
+                log.debug("Skip change of namespace: {}, it is not loaded", namespaceId);
+                return;
+            }
+        }
+        PolicySlot slot = slotOf(namespaceId);
+        while (true) {
+            PolicyStorage current = slot.get();
+            if (Objects.isNull(current) || Objects.isNull(event.version())
+                    || current.getVersion() + 1 < event.version() || changes.isEmpty()) {
+                break;
+            }
+            if (current.getVersion() >= event.version()) {
+                log.info("Skip change of namespace: {}, version: {}, current version: {}",
+                        namespaceId, event.version(), current.getVersion());
+                return;
+            }
+            Optional<PolicyStorage> next = current.applyChanges(changes, event.version());
+            if (next.isEmpty()) {
+                break;
+            }
+            if (slot.publish(current, next.get())) {
+                deltasApplied.increment();
+                log.info("Applied {} changes to namespace: {}, version: {}",
+                        changes.size(), namespaceId, event.version());
+                return;
+            }
+        }
+        PolicyStorage current = slot.get();
+        log.info("Request rebuilding namespace: {}, event version: {}, current version: {}", namespaceId,
+                event.version(), Objects.isNull(current) ? null : current.getVersion());
+        rebuildsRequested.increment();
+        rebuilds.request(namespaceId);
+    }
+
+    /**
+     * Requests a rebuild of every namespace published at a version older than the database one,
+     * and in eager mode of those not published at all, catching up on change events this node
+     * missed. Returns how many namespaces were behind.
+     */
+    public int reconcile() {
+        int behind = 0;
+        for (Namespace namespace : namespaceRepository.findAll()) {
+            PolicyStorage current = getLoadedPolicyStorage(namespace.getNamespaceId());
+            databaseVersions.merge(namespace.getNamespaceId(),
+                    Objects.requireNonNullElse(namespace.getVersion(), 0L), Math::max);
+            boolean stale = Objects.isNull(current) ? !loadingOptions.lazy()
+                    : current.getVersion() < Objects.requireNonNullElse(namespace.getVersion(), 0L);
+            if (stale) {
+                behind++;
+                rebuildsRequested.increment();
+                rebuilds.request(namespace.getNamespaceId());
+            }
+        }
+        return behind;
+    }
+
+    // Coalesced rebuild, skipped when an earlier one or a delta already reached the namespace version.
+    private void rebuild(String namespaceId) {
+        PolicyStorage current = getLoadedPolicyStorage(namespaceId);
+        if (loadingOptions.lazy() && Objects.isNull(current)) {
+            log.debug("Skip rebuilding namespace: {}, it is not loaded", namespaceId);
+            return;
+        }
+        Namespace namespace = namespaceRepository.findByNamespaceId(namespaceId);
+        if (Objects.isNull(namespace)) {
+            log.info("Skip rebuilding policy, namespace: {} does not exist", namespaceId);
+            return;
+        }
+        if (Objects.nonNull(current) && current.getVersion() >= Objects.requireNonNullElse(namespace.getVersion(), 0L)) {
+            log.info("Skip rebuilding namespace: {}, version: {} is already published", namespaceId, current.getVersion());
+            return;
+        }
+        rebuildsExecuted.increment();
         initiatingPolicy(namespace);
     }
 
     public PolicyStorage getPolicyStorage(String namespaceId) {
-        return policies.get(namespaceId);
+        if (!loadingOptions.lazy()) {
+            return getLoadedPolicyStorage(namespaceId);
+        }
+        PolicySlot slot = policies.get(namespaceId);
+        PolicyStorage policyStorage = Objects.isNull(slot) ? null : slot.access();
+        return Objects.isNull(policyStorage) ? load(namespaceId) : policyStorage;
+    }
+
+    /**
+     * Same as {@link #getPolicyStorage(String)}, but when the published version is older than
+     * minVersion a rebuild is requested, since the change event may not have reached this node
+     * yet, and the call waits up to maxWait for that version to be published. Returns the newest
+     * storage published by then, callers compare its version with the one they asked for.
+     */
+    public PolicyStorage getPolicyStorage(String namespaceId, long minVersion, Duration maxWait) {
+        PolicyStorage policyStorage = getPolicyStorage(namespaceId);
+        PolicySlot slot = policies.get(namespaceId);
+        if (Objects.isNull(policyStorage) || policyStorage.getVersion() >= minVersion || Objects.isNull(slot)) {
+            return policyStorage;
+        }
+        versionWaits.increment();
+        log.info("Wait for namespace: {}, version: {}, current version: {}",
+                namespaceId, minVersion, policyStorage.getVersion());
+        rebuilds.request(namespaceId);
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            CompletableFuture<Void> published = slot.nextPublish();
+            PolicyStorage current = slot.get();
+            long remaining = deadline - System.nanoTime();
+            if (current.getVersion() >= minVersion || remaining <= 0) {
+                return current;
+            }
+            try {
+                published.get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                return slot.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return slot.get();
+            }
+        }
+    }
+
+    private PolicyStorage getLoadedPolicyStorage(String namespaceId) {
+        PolicySlot slot = policies.get(namespaceId);
+        return Objects.isNull(slot) ? null : slot.get();
+    }
+
+    // Single flight, concurrent misses of one namespace wait for the same load.
+    private PolicyStorage load(String namespaceId) {
+        CompletableFuture<Void> loading = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = loadings.putIfAbsent(namespaceId, loading);
+        if (Objects.nonNull(inFlight)) {
+            inFlight.join();
+        } else {
+            try {
+                reloadPolicy(namespaceId);
+                loading.complete(null);
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            } finally {
+                loadings.remove(namespaceId, loading);
+            }
+            evictColdNamespaces(namespaceId);
+        }
+        PolicySlot slot = policies.get(namespaceId);
+        return Objects.isNull(slot) ? null : slot.access();
+    }
+
+    private synchronized void evictColdNamespaces(String loadedNamespaceId) {
+        List<Map.Entry<String, PolicySlot>> loaded = policies.entrySet().stream()
+                .filter(entry -> Objects.nonNull(entry.getValue().get()))
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        long bytes = loaded.stream().mapToLong(entry -> entry.getValue().get().sizeInBytes()).sum();
+        int namespaces = loaded.size();
+        for (Map.Entry<String, PolicySlot> entry : loaded) {
+            if (!loadingOptions.overBudget(namespaces, bytes)) {
+                break;
+            }
+            if (entry.getKey().equals(loadedNamespaceId)) {
+                continue;
+            }
+            PolicyStorage evicted = entry.getValue().get();
+            if (policies.remove(entry.getKey(), entry.getValue())) {
+                policyStorageFactory.persist(evicted);
+                namespaces--;
+                bytes -= evicted.sizeInBytes();
+                log.info("Evicted policy of namespace: {}, version: {}", entry.getKey(), evicted.getVersion());
+            }
+        }
+    }
+
+    // Registered once per namespace tag, the namespaces sharing the other tag are summed up.
+    private void registerGauges(String namespaceTag) {
+        if (!gaugedNamespaceTags.add(namespaceTag)) {
+            return;
+        }
+        registerGauge("policy.storage.groups", "Groups of the published policies", namespaceTag,
+                (published) -> published.mapToDouble(PolicyStorage::groupCount).sum());
+        registerGauge("policy.storage.permissions", "Permissions of the published policies", namespaceTag,
+                (published) -> published.mapToDouble(PolicyStorage::permissionCount).sum());
+        registerGauge("policy.storage.bytes", "Estimated heap retained by the published policies", namespaceTag,
+                (published) -> published.mapToDouble(PolicyStorage::sizeInBytes).sum());
+        registerGauge("policy.storage.version.lag", "Versions the published policies are behind the database",
+                namespaceTag, (published) -> published.mapToDouble(this::versionLag).max().orElse(0));
+    }
+
+    private void registerGauge(String name, String description, String namespaceTag,
+                               ToDoubleFunction<Stream<PolicyStorage>> value) {
+        Gauge.builder(name, this, (management) -> value.applyAsDouble(management.published(namespaceTag)))
+                .description(description)
+                .tag(PolicyMetrics.NAMESPACE_TAG, namespaceTag)
+                .register(metrics.registry());
+    }
+
+    private Stream<PolicyStorage> published(String namespaceTag) {
+        Stream<String> namespaceIds = PolicyMetrics.OTHER_NAMESPACES.equals(namespaceTag)
+                ? policies.keySet().stream().filter((namespaceId) -> !metrics.isTagged(namespaceId))
+                : Stream.of(namespaceTag);
+        return namespaceIds.map(this::getLoadedPolicyStorage).filter(Objects::nonNull);
+    }
+
+    private long versionLag(PolicyStorage policyStorage) {
+        long databaseVersion = databaseVersions.getOrDefault(policyStorage.getNamespaceId(), policyStorage.getVersion());
+        return Math.max(0, databaseVersion - policyStorage.getVersion());
+    }
+
+    private PolicySlot slotOf(String namespaceId) {
+        return policies.computeIfAbsent(namespaceId, (id) -> new PolicySlot());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.RoleInheritanceIdOnly;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+import org.ducanh.apiiam.repositories.GroupRoleRepository;
+import org.ducanh.apiiam.repositories.RoleInheritanceRepository;
+import org.ducanh.apiiam.repositories.RolePermissionRepository;
+import org.ducanh.apiiam.repositories.UserGroupRepository;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams the rows of a namespace from the database. Every kind of row is read through a cursor in
+ * its own read only transaction, which keeps the connection open while the builder consumes it.
+ */
+final class RepositoryPolicyRows implements PolicyRows {
+
+    private final String namespaceId;
+    private final GroupRoleRepository groupRoleRepository;
+    private final RolePermissionRepository rolePermissionRepository;
+    private final UserGroupRepository userGroupRepository;
+    private final RoleInheritanceRepository roleInheritanceRepository;
+    private final TransactionOperations readOnlyTransaction;
+    private final LongAdder rowsRead = new LongAdder();
+
+    RepositoryPolicyRows(String namespaceId, GroupRoleRepository groupRoleRepository,
+                         RolePermissionRepository rolePermissionRepository, UserGroupRepository userGroupRepository,
+                         RoleInheritanceRepository roleInheritanceRepository, TransactionOperations readOnlyTransaction) {
+        this.namespaceId = namespaceId;
+        this.groupRoleRepository = groupRoleRepository;
+        this.rolePermissionRepository = rolePermissionRepository;
+        this.userGroupRepository = userGroupRepository;
+        this.roleInheritanceRepository = roleInheritanceRepository;
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    @Override
+    public void forEachGroupRole(Consumer<GroupRoleIdOnly> action) {
+        stream(() -> groupRoleRepository.streamAllByNamespaceId(namespaceId), action);
+    }
+
+    @Override
+    public void forEachRolePermission(Consumer<RolePermissionIdOnly> action) {
+        stream(() -> rolePermissionRepository.streamAllByNamespaceId(namespaceId), action);
+    }
+
+    @Override
+    public void forEachUserGroup(Consumer<UserGroupIdOnly> action) {
+        stream(() -> userGroupRepository.streamAllByNamespaceId(namespaceId), action);
+    }
+
+    @Override
+    public void forEachRoleInheritance(Consumer<RoleInheritanceIdOnly> action) {
+        stream(() -> roleInheritanceRepository.streamAllByNamespaceId(namespaceId), action);
+    }
+
+    long rowsRead() {
+        return rowsRead.sum();
+    }
+
+    private <T> void stream(Supplier<Stream<T>> rows, Consumer<T> action) {
+        readOnlyTransaction.executeWithoutResult((status) -> {
+            try (Stream<T> stream = rows.get()) {
+                stream.forEach((row) -> {
+                    rowsRead.increment();
+                    action.accept(row);
+                });
+            }
+        });
+    }
+}
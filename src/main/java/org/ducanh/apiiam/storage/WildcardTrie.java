@@ -0,0 +1,101 @@
+package org.ducanh.apiiam.storage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Compiled wildcard permissions of one namespace. Permission ids are {@code :} separated segments,
+ * a wildcard such as {@code orders:*} grants every permission below {@code orders:} and {@code *}
+ * grants every permission. Patterns are stored as a trie keyed by segment, so matching walks the
+ * segments of the checked id once, whatever the number of wildcards. Immutable once compiled.
+ */
+final class WildcardTrie {
+
+    static final WildcardTrie EMPTY = compile(Map.of());
+
+    private static final char SEPARATOR = ':';
+    private static final char WILDCARD = '*';
+    // map node, segment string and trie node per pattern
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final Node root;
+    private final Map<String, Integer> patterns;
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private int code = IdDictionary.NOT_FOUND;
+    }
+
+    private WildcardTrie(Node root, Map<String, Integer> patterns) {
+        this.root = root;
+        this.patterns = patterns;
+    }
+
+    static boolean isWildcard(String permissionId) {
+        int length = permissionId.length();
+        return length > 0 && permissionId.charAt(length - 1) == WILDCARD
+                && (length == 1 || permissionId.charAt(length - 2) == SEPARATOR);
+    }
+
+    // Patterns mapped to the code the granted bitmaps hold for them.
+    static WildcardTrie compile(Map<String, Integer> patterns) {
+        Node root = new Node();
+        patterns.forEach((pattern, code) -> {
+            Node node = root;
+            int start = 0;
+            for (int end = pattern.indexOf(SEPARATOR); end >= 0; end = pattern.indexOf(SEPARATOR, start)) {
+                node = node.children.computeIfAbsent(pattern.substring(start, end), (segment) -> new Node());
+                start = end + 1;
+            }
+            node.code = code;
+        });
+        return new WildcardTrie(root, Map.copyOf(patterns));
+    }
+
+    Map<String, Integer> patterns() {
+        return patterns;
+    }
+
+    boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    /**
+     * Whether one of the wildcards matching {@code permissionId} is granted. The last segment is
+     * the action, so {@code orders:*} matches {@code orders:read} but not {@code orders}.
+     */
+    boolean anyMatch(String permissionId, IntPredicate granted) {
+        if (patterns.isEmpty()) {
+            return false;
+        }
+        Node node = root;
+        int start = 0;
+        while (true) {
+            if (node.code != IdDictionary.NOT_FOUND && granted.test(node.code)) {
+                return true;
+            }
+            int end = permissionId.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                return false;
+            }
+            node = node.children.get(permissionId.substring(start, end));
+            if (node == null) {
+                return false;
+            }
+            start = end + 1;
+        }
+    }
+
+    void forEachMatch(String permissionId, IntConsumer action) {
+        anyMatch(permissionId, (code) -> {
+            action.accept(code);
+            return false;
+        });
+    }
+
+    long sizeInBytes() {
+        return patterns.keySet().stream().mapToLong(pattern -> ENTRY_OVERHEAD_BYTES + pattern.length()).sum();
+    }
+}
@@ -0,0 +1,15 @@
+CREATE SEQUENCE IF NOT EXISTS role_inheritance_id_seq START WITH 1 INCREMENT BY 100;
+
+-- role_id includes every permission of child_role_id, transitively.
+CREATE TABLE role_inheritance
+(
+    role_inheritance_id BIGINT                   NOT NULL,
+    role_id             VARCHAR(100),
+    child_role_id       VARCHAR(100),
+    namespace_id        VARCHAR(255),
+    assigned_at         TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_role_inheritance PRIMARY KEY (role_inheritance_id),
+    CONSTRAINT uc_role_inheritance UNIQUE (namespace_id, role_id, child_role_id)
+);
+
+CREATE INDEX idx_role_inheritance_child ON role_inheritance (namespace_id, child_role_id);
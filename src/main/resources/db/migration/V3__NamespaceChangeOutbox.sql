@@ -0,0 +1,13 @@
+CREATE SEQUENCE IF NOT EXISTS namespace_change_outbox_id_seq START WITH 1 INCREMENT BY 100;
+
+-- Namespace change events written with the change itself, relayed to the change log after commit.
+CREATE TABLE namespace_change_outbox
+(
+    outbox_id    BIGINT                   NOT NULL,
+    namespace_id VARCHAR(255)             NOT NULL,
+    version      BIGINT                   NOT NULL,
+    payload      TEXT                     NOT NULL,
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_namespace_change_outbox PRIMARY KEY (outbox_id),
+    CONSTRAINT uc_namespace_change_outbox UNIQUE (namespace_id, version)
+);
@@ -0,0 +1,2 @@
+-- Serves the key ids of the live sessions of a namespace, when building its JWKS.
+CREATE INDEX idx_sessions_namespace_kid ON sessions (namespace_id, kid);
@@ -0,0 +1,4 @@
+-- The outbox also carries metadata records, without a policy version and for key pairs without a namespace.
+ALTER TABLE namespace_change_outbox ADD COLUMN event_field VARCHAR(32) NOT NULL DEFAULT 'event';
+ALTER TABLE namespace_change_outbox ALTER COLUMN namespace_id DROP NOT NULL;
+ALTER TABLE namespace_change_outbox ALTER COLUMN version DROP NOT NULL;
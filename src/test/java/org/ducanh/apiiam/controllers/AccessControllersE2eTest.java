@@ -5,6 +5,8 @@ import io.restassured.filter.log.RequestLoggingFilter;
 import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.http.ContentType;
 import org.ducanh.apiiam.ContainerConfig;
+import org.ducanh.apiiam.entities.User;
+import org.ducanh.apiiam.entities.UserStatus;
 import org.ducanh.apiiam.repositories.*;
 import org.ducanh.apiiam.storage.PolicyStorageManagement;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +16,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Objects;
@@ -21,7 +24,16 @@ import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static org.awaitility.Awaitility.await;
+import static org.ducanh.apiiam.Constants.MIN_NAMESPACE_VERSION_HEADER;
+import static org.ducanh.apiiam.Constants.NAMESPACE_CHANGE_STREAM;
+import static org.ducanh.apiiam.Constants.NAMESPACE_VERSION_HEADER;
+import static org.ducanh.apiiam.Constants.TOTAL_ELEMENTS_HEADER;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -46,12 +58,27 @@ class AccessControllersE2eTest {
     @Autowired
     private RolePermissionRepository rolePermissionRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserGroupRepository userGroupRepository;
+
+    @Autowired
+    private RoleInheritanceRepository roleInheritanceRepository;
+
+    @Autowired
+    private NamespaceChangeOutboxRepository namespaceChangeOutboxRepository;
+
     @Autowired
     private PolicyStorageManagement policyStorageManagement;
 
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
 
     private static final String NAMESPACE_ID = "master";
 
@@ -64,6 +91,10 @@ class AccessControllersE2eTest {
         permissionRepository.deleteAll();
         groupRoleRepository.deleteAll();
         rolePermissionRepository.deleteAll();
+        userGroupRepository.deleteAll();
+        roleInheritanceRepository.deleteAll();
+        namespaceChangeOutboxRepository.deleteAll();
+        userRepository.deleteAll();
         Objects.requireNonNull(redisTemplate.getConnectionFactory())
                 .getConnection().serverCommands().flushAll();
         policyStorageManagement.initiatingPolicy();
@@ -150,6 +181,64 @@ class AccessControllersE2eTest {
                 .statusCode(200);
     }
 
+    private void assignChildRoleForRole(String childRoleId, String roleId, int expectedStatus) {
+        given()
+                .contentType(ContentType.JSON)
+                .body(String.format("""
+                {
+                    "childRoleIds": ["%s"]
+                }
+                """, childRoleId))
+                .when()
+                .post("/role-inheritance/{namespaceId}/role-id/{roleId}/child-roles", NAMESPACE_ID, roleId)
+                .then()
+                .statusCode(expectedStatus);
+    }
+
+    private User createUser(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .namespaceId(NAMESPACE_ID)
+                .isVerified(true)
+                .deleted(false)
+                .status(UserStatus.ACTIVE)
+                .mfaEnabled(false)
+                .accountLocked(false)
+                .build());
+    }
+
+    private void assignGroupForUser(String groupId, Long userId) {
+        given()
+                .contentType(ContentType.JSON)
+                .body(String.format("""
+                {
+                    "groupIds": ["%s"]
+                }
+                """, groupId))
+                .when()
+                .post("/user-group/user-id/{userId}/groups", userId)
+                .then()
+                .statusCode(200);
+    }
+
+    private void checkUserAccess(Long userId, String permissionId, Boolean assertAccess) {
+        given()
+                .contentType(ContentType.JSON)
+                .header("namespace-id", NAMESPACE_ID)
+                .body(String.format("""
+                {
+                    "userId": %d,
+                    "permissionId": "%s"
+                }
+                """, userId, permissionId))
+                .when()
+                .post("/access/check-access/user")
+                .then()
+                .statusCode(200)
+                .body("canAccess", equalTo(assertAccess));
+    }
+
     private void checkAccess(String groupId, String permissionId, Boolean assertAccess) {
         String checkAccessRequest = String.format("""
                 {
@@ -247,6 +336,349 @@ class AccessControllersE2eTest {
                 });
     }
 
+    @Test
+    public void testBatchCheckAccess() {
+        createPermission("read");
+        createPermission("write");
+        createRole("viewer_role");
+        createGroup("viewer_group");
+        assignPermissionForRole("read", "viewer_role");
+        assignRoleForGroup("viewer_role", "viewer_group");
+
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> given()
+                        .contentType(ContentType.JSON)
+                        .body(String.format("""
+                                {
+                                    "checks": [
+                                        {"namespaceId": "%1$s", "groupId": ["viewer_group"], "permissionId": "write"},
+                                        {"namespaceId": "%1$s", "groupId": ["other_group", "viewer_group"], "permissionId": "read"},
+                                        {"namespaceId": "%1$s", "groupId": [], "permissionId": "read"}
+                                    ]
+                                }
+                                """, NAMESPACE_ID))
+                        .when()
+                        .post("/access/check-access/batch")
+                        .then()
+                        .statusCode(200)
+                        .body("size()", equalTo(3))
+                        .body("[0].canAccess", equalTo(false))
+                        .body("[1].canAccess", equalTo(true))
+                        .body("[2].canAccess", equalTo(false)));
+    }
+
+    @Test
+    public void testBatchCheckAccessWithUnknownNamespace() {
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {
+                            "checks": [
+                                {"namespaceId": "unknown-namespace", "groupId": ["group"], "permissionId": "read"}
+                            ]
+                        }
+                        """)
+                .when()
+                .post("/access/check-access/batch")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    public void testCheckUserAccess() {
+        createPermission("read");
+        createPermission("write");
+        createRole("viewer_role");
+        createRole("editor_role");
+        createGroup("viewer_group");
+        createGroup("editor_group");
+        assignPermissionForRole("read", "viewer_role");
+        assignPermissionForRole("write", "editor_role");
+        assignRoleForGroup("viewer_role", "viewer_group");
+        assignRoleForGroup("editor_role", "editor_group");
+        User viewer = createUser("viewer");
+        User outsider = createUser("outsider");
+        assignGroupForUser("viewer_group", viewer.getUserId());
+
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> {
+                    checkUserAccess(viewer.getUserId(), "read", true);
+                    checkUserAccess(viewer.getUserId(), "write", false);
+                    checkUserAccess(outsider.getUserId(), "read", false);
+                });
+
+        assignGroupForUser("editor_group", viewer.getUserId());
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                {
+                    "groupIds": ["viewer_group"]
+                }
+                """)
+                .when()
+                .delete("/user-group/user-id/{userId}/groups/", viewer.getUserId())
+                .then()
+                .statusCode(200);
+
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> {
+                    checkUserAccess(viewer.getUserId(), "read", false);
+                    checkUserAccess(viewer.getUserId(), "write", true);
+                });
+    }
+
+    @Test
+    public void testGetGroupsAndRolesGrantingPermission() {
+        createPermission("read");
+        createRole("viewer_role");
+        createRole("editor_role");
+        createGroup("group_b");
+        createGroup("group_a");
+        createGroup("group_c");
+        assignPermissionForRole("read", "viewer_role");
+        assignPermissionForRole("read", "editor_role");
+        assignRoleForGroup("viewer_role", "group_b");
+        assignRoleForGroup("editor_role", "group_a");
+        assignRoleForGroup("viewer_role", "group_c");
+
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> {
+                    given()
+                            .header("namespace-id", NAMESPACE_ID)
+                            .queryParam("page", 0)
+                            .queryParam("size", 2)
+                            .when()
+                            .get("/access/permission-id/{permissionId}/groups", "read")
+                            .then()
+                            .statusCode(200)
+                            .header(TOTAL_ELEMENTS_HEADER, "3")
+                            .body("size()", equalTo(2))
+                            .body("[0]", equalTo("group_a"))
+                            .body("[1]", equalTo("group_b"));
+                    given()
+                            .header("namespace-id", NAMESPACE_ID)
+                            .when()
+                            .get("/access/permission-id/{permissionId}/roles", "read")
+                            .then()
+                            .statusCode(200)
+                            .header(TOTAL_ELEMENTS_HEADER, "2")
+                            .body("[0]", equalTo("editor_role"))
+                            .body("[1]", equalTo("viewer_role"));
+                });
+    }
+
+    @Test
+    public void testGetEffectivePermissions() {
+        createPermission("read");
+        createPermission("write");
+        createPermission("audit");
+        createRole("viewer_role");
+        createRole("editor_role");
+        createGroup("viewers");
+        createGroup("editors");
+        assignPermissionForRole("read", "viewer_role");
+        assignPermissionForRole("write", "editor_role");
+        assignPermissionForRole("read", "editor_role");
+        assignRoleForGroup("viewer_role", "viewers");
+        assignRoleForGroup("editor_role", "editors");
+
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> given()
+                        .contentType(ContentType.JSON)
+                        .header("namespace-id", NAMESPACE_ID)
+                        .body("""
+                                {
+                                    "groupIds": ["viewers", "editors", "unknown_group"]
+                                }
+                                """)
+                        .when()
+                        .post("/access/effective-permissions")
+                        .then()
+                        .statusCode(200)
+                        .body("namespaceId", equalTo(NAMESPACE_ID))
+                        .body("count", equalTo(2))
+                        .body("permissionIds[0]", equalTo("read"))
+                        .body("permissionIds[1]", equalTo("write")));
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("namespace-id", NAMESPACE_ID)
+                .queryParam("encoding", "COMPACT")
+                .body("""
+                        {
+                            "groupIds": ["viewers"]
+                        }
+                        """)
+                .when()
+                .post("/access/effective-permissions")
+                .then()
+                .statusCode(200)
+                .body("count", equalTo(1))
+                .body("encodedPermissionIds", notNullValue());
+    }
+
+    @Test
+    void testCheckAccessThroughInheritedRoles() {
+        createGroup("admins");
+        createGroup("viewers");
+        createRole("admin_role");
+        createRole("editor_role");
+        createRole("viewer_role");
+        createPermission("read");
+        createPermission("write");
+        assignPermissionForRole("read", "viewer_role");
+        assignPermissionForRole("write", "editor_role");
+        assignRoleForGroup("admin_role", "admins");
+        assignRoleForGroup("viewer_role", "viewers");
+
+        assignChildRoleForRole("editor_role", "admin_role", 200);
+        assignChildRoleForRole("viewer_role", "editor_role", 200);
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {
+                            "childRoleIds": ["admin_role"]
+                        }
+                        """)
+                .when()
+                .post("/role-inheritance/{namespaceId}/role-id/{roleId}/child-roles", NAMESPACE_ID, "viewer_role")
+                .then()
+                .statusCode(400)
+                .body("errorCode", equalTo("ROLE_019_400"));
+
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> {
+                    checkAccess("admins", "read", true);
+                    checkAccess("admins", "write", true);
+                    checkAccess("viewers", "write", false);
+                });
+
+        given()
+                .when()
+                .get("/role-inheritance/{namespaceId}/role-id/{roleId}/child-roles", NAMESPACE_ID, "admin_role")
+                .then()
+                .statusCode(200)
+                .header(TOTAL_ELEMENTS_HEADER, "1")
+                .body("[0].roleId", equalTo("editor_role"));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {
+                            "childRoleIds": ["viewer_role"]
+                        }
+                        """)
+                .when()
+                .delete("/role-inheritance/{namespaceId}/role-id/{roleId}/child-roles", NAMESPACE_ID, "editor_role")
+                .then()
+                .statusCode(200);
+
+        // nothing left to remove, the namespace version stays
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {
+                            "childRoleIds": ["viewer_role"]
+                        }
+                        """)
+                .when()
+                .delete("/role-inheritance/{namespaceId}/role-id/{roleId}/child-roles", NAMESPACE_ID, "editor_role")
+                .then()
+                .statusCode(200)
+                .header(NAMESPACE_VERSION_HEADER, nullValue());
+
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> {
+                    checkAccess("admins", "read", false);
+                    checkAccess("admins", "write", true);
+                });
+    }
+
+    @Test
+    void testCheckAccessAtMinimumVersion() {
+        createGroup("editors");
+        createRole("editor_role");
+        createPermission("write");
+        assignRoleForGroup("editor_role", "editors");
+
+        String version = given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {
+                            "permissionIds": ["write"]
+                        }
+                        """)
+                .when()
+                .post("/role-permission/{namespaceId}/role-id/{roleId}/permissions", NAMESPACE_ID, "editor_role")
+                .then()
+                .statusCode(200)
+                .header(NAMESPACE_VERSION_HEADER, notNullValue())
+                .extract()
+                .header(NAMESPACE_VERSION_HEADER);
+
+        // no await, the node catches up before answering
+        given()
+                .contentType(ContentType.JSON)
+                .header("namespace-id", NAMESPACE_ID)
+                .header(MIN_NAMESPACE_VERSION_HEADER, version)
+                .body("""
+                        {
+                            "groupId": ["editors"],
+                            "permissionId": "write"
+                        }
+                        """)
+                .when()
+                .post("/access/check-access")
+                .then()
+                .statusCode(200)
+                .body("canAccess", equalTo(true))
+                .body("version", greaterThanOrEqualTo(Integer.parseInt(version)));
 
+        given()
+                .contentType(ContentType.JSON)
+                .header("namespace-id", NAMESPACE_ID)
+                .header(MIN_NAMESPACE_VERSION_HEADER, Long.parseLong(version) + 1_000)
+                .body("""
+                        {
+                            "groupId": ["editors"],
+                            "permissionId": "write"
+                        }
+                        """)
+                .when()
+                .post("/access/check-access")
+                .then()
+                .statusCode(503)
+                .body("errorCode", equalTo("NAMESPACE_020_503"));
+    }
+
+    @Test
+    void testNamespaceChangesRelayedAfterCommit() {
+        createGroup("editors");
+        createRole("editor_role");
+        createPermission("write");
+        assignRoleForGroup("editor_role", "editors");
+        assignPermissionForRole("write", "editor_role");
 
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> {
+                    assertEquals(0, namespaceChangeOutboxRepository.count());
+                    assertTrue(stringRedisTemplate.opsForStream().size(NAMESPACE_CHANGE_STREAM) >= 2);
+                    checkAccess("editors", "write", true);
+                });
+    }
 }
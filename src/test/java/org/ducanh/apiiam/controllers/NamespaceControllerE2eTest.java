@@ -22,6 +22,8 @@ import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -199,7 +201,12 @@ public class NamespaceControllerE2eTest {
                 .statusCode(200)
                 .body("namespaceName", equalTo("Updated Name"))
                 .body("description", equalTo("Updated Description"))
-                .body("keyPairId", equalTo(newKeyPair.getKeyPairId().intValue()));
+                .body("keyPairId", equalTo(newKeyPair.getKeyPairId().intValue()))
+                .header("X-Namespace-Version", nullValue());
+
+        // a key pair change is metadata, the policy version stays
+        assertNull(namespaceRepository.findByNamespaceId("test-namespace").getVersion());
+        assertEquals(newKeyPair.getKeyPairId(), namespaceRepository.findKeyPairIdByNamespaceId("test-namespace"));
     }
 
     @Test
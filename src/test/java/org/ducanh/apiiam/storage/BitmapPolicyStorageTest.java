@@ -0,0 +1,411 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.dto.events.PolicyChange;
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RoleInheritanceIdOnly;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapPolicyStorageTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BitmapPolicyStorageTest.class);
+    private static final String NAMESPACE_ID = "test-namespace";
+
+    @Test
+    void whenCheckAccess_thenMatchGrantedPermissions() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(3L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("editor", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("editor", "write", NAMESPACE_ID),
+                new RolePermissionIdOnly("viewer", "read", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("editors", "editor", NAMESPACE_ID),
+                new GroupRoleIdOnly("viewers", "viewer", NAMESPACE_ID),
+                new GroupRoleIdOnly("empty", "role-without-permission", NAMESPACE_ID));
+
+        PolicyStorage policyStorage = new BitmapPolicyStorage(namespace, groupRoles, rolePermissions);
+
+        assertEquals(NAMESPACE_ID, policyStorage.getNamespaceId());
+        assertEquals(3L, policyStorage.getVersion());
+        assertTrue(policyStorage.checkAccess("editors", "read"));
+        assertTrue(policyStorage.checkAccess("editors", "write"));
+        assertTrue(policyStorage.checkAccess("viewers", "read"));
+        assertFalse(policyStorage.checkAccess("viewers", "write"));
+        assertFalse(policyStorage.checkAccess("empty", "read"));
+        assertFalse(policyStorage.checkAccess("unknown-group", "read"));
+        assertFalse(policyStorage.checkAccess("editors", "unknown-permission"));
+    }
+
+    @Test
+    void whenApplyChanges_thenNewVersionMatchesRebuildAndOldVersionUnchanged() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("editor", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("editor", "write", NAMESPACE_ID),
+                new RolePermissionIdOnly("viewer", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("auditor", "audit", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("editors", "editor", NAMESPACE_ID),
+                new GroupRoleIdOnly("viewers", "viewer", NAMESPACE_ID),
+                new GroupRoleIdOnly("auditors", "auditor", NAMESPACE_ID));
+        PolicyStorage policyStorage = new BitmapPolicyStorage(namespace, groupRoles, rolePermissions);
+
+        PolicyStorage changed = policyStorage.applyChanges(List.of(
+                PolicyChange.groupRolesAdded("viewers", List.of("auditor")),
+                PolicyChange.rolePermissionsRemoved("editor", List.of("write")),
+                PolicyChange.rolePermissionsAdded("viewer", List.of("export")),
+                PolicyChange.groupRolesAdded("new-group", List.of("editor")),
+                PolicyChange.groupDeleted("auditors"),
+                PolicyChange.permissionDeleted("read")), 2L).orElseThrow();
+
+        assertEquals(2L, changed.getVersion());
+        assertFalse(changed.checkAccess("editors", "write"));
+        assertFalse(changed.checkAccess("editors", "read"));
+        assertTrue(changed.checkAccess("viewers", "audit"));
+        assertTrue(changed.checkAccess("viewers", "export"));
+        assertFalse(changed.checkAccess("new-group", "read"));
+        assertFalse(changed.checkAccess("auditors", "audit"));
+
+        PolicyStorage roleDeleted = changed.applyChanges(List.of(PolicyChange.roleDeleted("auditor")), 3L)
+                .orElseThrow();
+        assertFalse(roleDeleted.checkAccess("viewers", "audit"));
+        assertTrue(roleDeleted.checkAccess("viewers", "export"));
+
+        assertEquals(1L, policyStorage.getVersion());
+        assertTrue(policyStorage.checkAccess("editors", "write"));
+        assertTrue(policyStorage.checkAccess("editors", "read"));
+        assertTrue(policyStorage.checkAccess("auditors", "audit"));
+        assertFalse(policyStorage.checkAccess("viewers", "audit"));
+        assertTrue(changed.checkAccess("viewers", "audit"));
+    }
+
+    @Test
+    void whenCheckUserAccess_thenResolveGroupsFromMembershipIndex() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("editor", "write", NAMESPACE_ID),
+                new RolePermissionIdOnly("viewer", "read", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("editors", "editor", NAMESPACE_ID),
+                new GroupRoleIdOnly("viewers", "viewer", NAMESPACE_ID));
+        List<UserGroupIdOnly> userGroups = List.of(
+                new UserGroupIdOnly(1L, "editors", NAMESPACE_ID),
+                new UserGroupIdOnly(1L, "viewers", NAMESPACE_ID),
+                new UserGroupIdOnly(2L, "viewers", NAMESPACE_ID));
+        PolicyStorage policyStorage = new BitmapPolicyStorage(namespace, groupRoles, rolePermissions, userGroups);
+
+        assertTrue(policyStorage.checkUserAccess(1L, "write"));
+        assertTrue(policyStorage.checkUserAccess(1L, "read"));
+        assertTrue(policyStorage.checkUserAccess(2L, "read"));
+        assertFalse(policyStorage.checkUserAccess(2L, "write"));
+        assertFalse(policyStorage.checkUserAccess(3L, "read"));
+        PolicyStorage hashMapStorage = new HashMapPolicyStorage(namespace, groupRoles, rolePermissions, userGroups);
+        for (long userId = 1; userId <= 3; userId++) {
+            for (String permissionId : List.of("read", "write")) {
+                assertEquals(hashMapStorage.checkUserAccess(userId, permissionId),
+                        policyStorage.checkUserAccess(userId, permissionId));
+            }
+        }
+
+        PolicyStorage changed = policyStorage.applyChanges(List.of(
+                PolicyChange.userGroupsAdded(2L, List.of("editors")),
+                PolicyChange.userGroupsRemoved(2L, List.of("viewers")),
+                PolicyChange.userGroupsAdded(3L, List.of("viewers")),
+                PolicyChange.userDeleted(1L)), 2L).orElseThrow();
+        assertTrue(changed.checkUserAccess(2L, "write"));
+        assertFalse(changed.checkUserAccess(2L, "read"));
+        assertTrue(changed.checkUserAccess(3L, "read"));
+        assertFalse(changed.checkUserAccess(1L, "read"));
+
+        PolicyStorage groupDeleted = changed.applyChanges(List.of(PolicyChange.groupDeleted("editors")), 3L)
+                .orElseThrow();
+        assertFalse(groupDeleted.checkUserAccess(2L, "write"));
+        assertTrue(policyStorage.checkUserAccess(1L, "write"));
+    }
+
+    @Test
+    void whenFindGranting_thenPagesAreSortedAndFollowDeltas() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("viewer", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("editor", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("editor", "write", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("group-c", "viewer", NAMESPACE_ID),
+                new GroupRoleIdOnly("group-a", "editor", NAMESPACE_ID),
+                new GroupRoleIdOnly("group-b", "viewer", NAMESPACE_ID),
+                new GroupRoleIdOnly("group-a", "viewer", NAMESPACE_ID));
+        PolicyStorage policyStorage = new BitmapPolicyStorage(namespace, groupRoles, rolePermissions);
+
+        assertEquals(new IdPage(List.of("editor", "viewer"), 2),
+                policyStorage.findRolesGranting("read", 0, 10).orElseThrow());
+        assertEquals(new IdPage(List.of("group-a", "group-b"), 3),
+                policyStorage.findGroupsGranting("read", 0, 2).orElseThrow());
+        assertEquals(new IdPage(List.of("group-c"), 3),
+                policyStorage.findGroupsGranting("read", 2, 2).orElseThrow());
+        assertEquals(new IdPage(List.of(), 0),
+                policyStorage.findGroupsGranting("unknown-permission", 0, 2).orElseThrow());
+
+        PolicyStorage changed = policyStorage.applyChanges(List.of(
+                PolicyChange.groupRolesAdded("group-0", List.of("editor")),
+                PolicyChange.roleDeleted("viewer"),
+                PolicyChange.permissionDeleted("write")), 2L).orElseThrow();
+        assertEquals(new IdPage(List.of("group-0", "group-a"), 2),
+                changed.findGroupsGranting("read", 0, 10).orElseThrow());
+        assertEquals(new IdPage(List.of(), 0), changed.findRolesGranting("write", 0, 10).orElseThrow());
+        assertFalse(changed.checkAccess("group-a", "write"));
+        assertEquals(new IdPage(List.of("editor"), 1), policyStorage.findRolesGranting("write", 0, 10).orElseThrow());
+    }
+
+    @Test
+    void whenRolesInherit_thenGroupsGetPermissionsOfDescendantRoles() throws IOException {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("viewer", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("editor", "write", NAMESPACE_ID),
+                new RolePermissionIdOnly("admin", "delete", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("admins", "admin", NAMESPACE_ID),
+                new GroupRoleIdOnly("editors", "editor", NAMESPACE_ID),
+                new GroupRoleIdOnly("viewers", "viewer", NAMESPACE_ID));
+        List<RoleInheritanceIdOnly> roleInheritances = List.of(
+                new RoleInheritanceIdOnly("admin", "editor", NAMESPACE_ID),
+                new RoleInheritanceIdOnly("editor", "viewer", NAMESPACE_ID));
+        BitmapPolicyStorage policyStorage = new BitmapPolicyStorage(namespace,
+                PolicyRows.of(groupRoles, rolePermissions, List.of(), roleInheritances));
+
+        assertTrue(policyStorage.checkAccess("admins", "read"));
+        assertTrue(policyStorage.checkAccess("admins", "write"));
+        assertTrue(policyStorage.checkAccess("editors", "read"));
+        assertFalse(policyStorage.checkAccess("editors", "delete"));
+        assertFalse(policyStorage.checkAccess("viewers", "write"));
+        assertEquals(new IdPage(List.of("admin", "editor", "viewer"), 3),
+                policyStorage.findRolesGranting("read", 0, 10).orElseThrow());
+        assertEquals(new IdPage(List.of("admins", "editors"), 2),
+                policyStorage.findGroupsGranting("write", 0, 10).orElseThrow());
+
+        PolicyStorage changed = policyStorage.applyChanges(List.of(
+                PolicyChange.rolePermissionsAdded("viewer", List.of("export")),
+                PolicyChange.roleChildrenRemoved("admin", List.of("editor"))), 2L).orElseThrow();
+        assertTrue(changed.checkAccess("editors", "export"));
+        assertFalse(changed.checkAccess("admins", "read"));
+        assertTrue(changed.checkAccess("admins", "delete"));
+        assertTrue(policyStorage.checkAccess("admins", "read"));
+
+        PolicyStorage viewerDeleted = policyStorage.applyChanges(List.of(
+                PolicyChange.roleDeleted("viewer")), 2L).orElseThrow();
+        assertFalse(viewerDeleted.checkAccess("admins", "read"));
+        assertTrue(viewerDeleted.checkAccess("admins", "write"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            policyStorage.write(out);
+        }
+        PolicyStorage restored = BitmapPolicyStorage.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertTrue(restored.checkAccess("admins", "read"));
+        PolicyStorage restoredChanged = restored.applyChanges(List.of(
+                PolicyChange.roleChildrenAdded("viewer", List.of("admin"))), 2L).orElseThrow();
+        // cycles are rejected when written, the graph still has to stay finite when one slips through
+        assertTrue(restoredChanged.checkAccess("viewers", "delete"));
+    }
+
+    @Test
+    void whenGrantWildcard_thenMatchPermissionsBelowPrefix() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("order-admin", "orders:*", NAMESPACE_ID),
+                new RolePermissionIdOnly("exporter", "billing:invoices:*", NAMESPACE_ID),
+                new RolePermissionIdOnly("reader", "billing:read", NAMESPACE_ID),
+                new RolePermissionIdOnly("root", "*", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("order-admins", "order-admin", NAMESPACE_ID),
+                new GroupRoleIdOnly("accountants", "exporter", NAMESPACE_ID),
+                new GroupRoleIdOnly("accountants", "reader", NAMESPACE_ID),
+                new GroupRoleIdOnly("roots", "root", NAMESPACE_ID));
+        PolicyStorage policyStorage = new BitmapPolicyStorage(namespace, groupRoles, rolePermissions);
+
+        assertTrue(policyStorage.checkAccess("order-admins", "orders:read"));
+        assertTrue(policyStorage.checkAccess("order-admins", "orders:items:write"));
+        assertTrue(policyStorage.checkAccess("order-admins", "orders:*"));
+        assertFalse(policyStorage.checkAccess("order-admins", "orders"));
+        assertFalse(policyStorage.checkAccess("order-admins", "ordersx:read"));
+        assertFalse(policyStorage.checkAccess("order-admins", "billing:read"));
+        assertTrue(policyStorage.checkAccess("accountants", "billing:invoices:export"));
+        assertTrue(policyStorage.checkAccess("accountants", "billing:read"));
+        assertFalse(policyStorage.checkAccess("accountants", "billing:write"));
+        assertTrue(policyStorage.checkAccess("roots", "anything"));
+        assertEquals(new IdPage(List.of("order-admin", "root"), 2),
+                policyStorage.findRolesGranting("orders:read", 0, 10).orElseThrow());
+        assertEquals(new IdPage(List.of("accountants", "roots"), 2),
+                policyStorage.findGroupsGranting("billing:invoices:export", 0, 10).orElseThrow());
+
+        PolicyStorage changed = policyStorage.applyChanges(List.of(
+                PolicyChange.rolePermissionsAdded("reader", List.of("billing:*")),
+                PolicyChange.rolePermissionsRemoved("order-admin", List.of("orders:*"))), 2L).orElseThrow();
+        assertTrue(changed.checkAccess("accountants", "billing:write"));
+        assertFalse(changed.checkAccess("order-admins", "orders:read"));
+        assertFalse(policyStorage.checkAccess("accountants", "billing:write"));
+    }
+
+    @Test
+    void whenGroupHoldsManyWildcards_thenCheckStaysFast() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            rolePermissions.add(new RolePermissionIdOnly("role-" + i % 10, "service-" + i + ":*", NAMESPACE_ID));
+            rolePermissions.add(new RolePermissionIdOnly("role-" + i % 10, "service-" + i + ":read", NAMESPACE_ID));
+        }
+        List<GroupRoleIdOnly> groupRoles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            groupRoles.add(new GroupRoleIdOnly("group", "role-" + i, NAMESPACE_ID));
+        }
+        PolicyStorage policyStorage = new BitmapPolicyStorage(namespace, groupRoles, rolePermissions);
+
+        int checks = 1_000_000;
+        boolean granted = true;
+        long start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            granted &= policyStorage.checkAccess("group", "service-" + (i % 1_000) + ":resource:write");
+        }
+        long wildcardNanos = (System.nanoTime() - start) / checks;
+        start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            granted &= policyStorage.checkAccess("group", "service-" + (i % 1_000) + ":read");
+        }
+        long exactNanos = (System.nanoTime() - start) / checks;
+        log.info("Check with 1000 wildcards: wildcard match {} ns, exact match {} ns", wildcardNanos, exactNanos);
+        assertTrue(granted);
+        assertFalse(policyStorage.checkAccess("group", "service-1000:read"));
+    }
+
+    @Test
+    void whenCheckGroupSet_thenUnionIsCachedPerVersionWhateverTheOrder() {
+        SyntheticNamespace synthetic = SyntheticNamespace.generate(NAMESPACE_ID, 500, 4, 200,
+                20, 1_000, 42);
+        PolicyStorage hashMapStorage = new HashMapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+        BitmapPolicyStorage bitmapStorage = new BitmapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+
+        List<List<String>> groupSets = List.of(
+                List.of("group-1", "group-2", "group-3"),
+                List.of("group-3", "group-1", "group-2", "group-1"),
+                List.of("group-7", "unknown-group"));
+        for (List<String> groupIds : groupSets) {
+            for (int permission = 0; permission < synthetic.permissions(); permission++) {
+                assertEquals(hashMapStorage.checkAccess(groupIds, "permission-" + permission),
+                        bitmapStorage.checkAccess(groupIds, "permission-" + permission));
+            }
+        }
+        assertEquals(2, bitmapStorage.cachedGroupSets());
+
+        String granted = hashMapStorage.findEffectivePermissions(List.of("group-7")).get(0);
+        assertTrue(bitmapStorage.checkAccess(List.of("group-7", "unknown-group"), granted));
+        BitmapPolicyStorage changed = (BitmapPolicyStorage) bitmapStorage.applyChanges(List.of(
+                PolicyChange.groupDeleted("group-7")), 2L).orElseThrow();
+        assertEquals(0, changed.cachedGroupSets());
+        assertFalse(changed.checkAccess(List.of("group-7", "unknown-group"), granted));
+        assertTrue(bitmapStorage.checkAccess(List.of("unknown-group", "group-7"), granted));
+    }
+
+    @Test
+    void whenFindEffectivePermissions_thenSortedUnionMatchesHashMapStorage() {
+        SyntheticNamespace synthetic = SyntheticNamespace.generate(NAMESPACE_ID, 500, 4, 200,
+                20, 1_000, 42);
+        PolicyStorage hashMapStorage = new HashMapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+        PolicyStorage bitmapStorage = new BitmapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            List<String> groupIds = List.of("group-" + random.nextInt(synthetic.groups()),
+                    "group-" + random.nextInt(synthetic.groups()), "unknown-group");
+            assertEquals(hashMapStorage.findEffectivePermissions(groupIds),
+                    bitmapStorage.findEffectivePermissions(groupIds));
+        }
+
+        PolicyStorage changed = bitmapStorage.applyChanges(List.of(
+                PolicyChange.groupDeleted("group-0")), 2L).orElseThrow();
+        assertEquals(List.of(), changed.findEffectivePermissions(List.of("group-0")));
+        assertEquals(List.of(), bitmapStorage.findEffectivePermissions(List.of("unknown-group")));
+    }
+
+    @Test
+    void whenCompareWithHashMapStorage_thenSameDecisionsWithLessHeap() {
+        // 1000 roles * 100 permissions = 100k role_permission rows
+        SyntheticNamespace synthetic = SyntheticNamespace.generate(NAMESPACE_ID, 2_000, 4, 1_000,
+                100, 5_000, 42);
+
+        long baseline = usedHeap();
+        PolicyStorage hashMapStorage = new HashMapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+        long hashMapHeap = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        PolicyStorage bitmapStorage = new BitmapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+        long bitmapHeap = usedHeap() - baseline;
+
+        Random random = new Random(7);
+        String[] groupIds = new String[100_000];
+        String[] permissionIds = new String[groupIds.length];
+        for (int i = 0; i < groupIds.length; i++) {
+            groupIds[i] = "group-" + random.nextInt(synthetic.groups());
+            permissionIds[i] = "permission-" + random.nextInt(synthetic.permissions());
+            assertEquals(hashMapStorage.checkAccess(groupIds[i], permissionIds[i]),
+                    bitmapStorage.checkAccess(groupIds[i], permissionIds[i]));
+        }
+
+        double hashMapThroughput = throughput(hashMapStorage::checkAccess, groupIds, permissionIds);
+        double bitmapThroughput = throughput(bitmapStorage::checkAccess, groupIds, permissionIds);
+        log.info("HashMap storage: heap {} KB, {} checks/s", hashMapHeap / 1024, (long) hashMapThroughput);
+        log.info("Bitmap storage: heap {} KB, {} checks/s", bitmapHeap / 1024, (long) bitmapThroughput);
+        assertTrue(bitmapHeap < hashMapHeap,
+                "Bitmap storage used " + bitmapHeap + " bytes, HashMap storage used " + hashMapHeap);
+    }
+
+    private static double throughput(BiFunction<String, String, Boolean> checkAccess,
+                                     String[] groupIds, String[] permissionIds) {
+        int granted = 0;
+        // warm up
+        for (int i = 0; i < groupIds.length; i++) {
+            granted += checkAccess.apply(groupIds[i], permissionIds[i]) ? 1 : 0;
+        }
+        int rounds = 10;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < groupIds.length; i++) {
+                granted += checkAccess.apply(groupIds[i], permissionIds[i]) ? 1 : 0;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        log.debug("Granted checks: {}", granted);
+        return (double) rounds * groupIds.length / elapsed * 1_000_000_000L;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
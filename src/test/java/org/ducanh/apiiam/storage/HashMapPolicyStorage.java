@@ -0,0 +1,68 @@
+package org.ducanh.apiiam.storage;
+
+
+import lombok.Getter;
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Previous String based engine, kept as the baseline for comparing BitmapPolicyStorage against.
+public class HashMapPolicyStorage implements PolicyStorage {
+    private final Map<String, Set<String>> mapGroupIdToSetPermissionId;
+    private final Map<Long, List<String>> mapUserIdToGroupIds;
+
+    @Getter
+    private final String namespaceId;
+    @Getter
+    private final Long version;
+
+    public HashMapPolicyStorage(Namespace namespace, List<GroupRoleIdOnly> groupRoles,
+                                List<RolePermissionIdOnly> rolePermissions) {
+        this(namespace, groupRoles, rolePermissions, List.of());
+    }
+
+    public HashMapPolicyStorage(Namespace namespace, List<GroupRoleIdOnly> groupRoles,
+                                List<RolePermissionIdOnly> rolePermissions, List<UserGroupIdOnly> userGroups) {
+        Map<String, List<String>> mapRoleToPermission = rolePermissions.stream()
+                .collect(Collectors.groupingBy(RolePermissionIdOnly::roleId,
+                        Collectors.mapping(RolePermissionIdOnly::permissionId, Collectors.toList())));
+        mapGroupIdToSetPermissionId = groupRoles.stream().collect(Collectors
+                .groupingBy(GroupRoleIdOnly::groupId,
+                        Collectors.flatMapping(
+                                gr -> mapRoleToPermission.getOrDefault(gr.roleId(), List.of()).stream(),
+                                Collectors.toSet())));
+        mapUserIdToGroupIds = userGroups.stream().collect(Collectors.groupingBy(UserGroupIdOnly::userId,
+                Collectors.mapping(UserGroupIdOnly::groupId, Collectors.toList())));
+        this.namespaceId = namespace.getNamespaceId();
+        this.version = namespace.getVersion();
+    }
+
+    @Override
+    public Boolean checkAccess(String groupId, String permissionId) {
+        return mapGroupIdToSetPermissionId.getOrDefault(groupId, Collections.emptySet())
+                .contains(permissionId);
+    }
+
+    @Override
+    public Boolean checkUserAccess(Long userId, String permissionId) {
+        return mapUserIdToGroupIds.getOrDefault(userId, List.of()).stream()
+                .anyMatch(groupId -> checkAccess(groupId, permissionId));
+    }
+
+    @Override
+    public List<String> findEffectivePermissions(List<String> groupIds) {
+        return groupIds.stream()
+                .flatMap(groupId -> mapGroupIdToSetPermissionId.getOrDefault(groupId, Collections.emptySet()).stream())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+}
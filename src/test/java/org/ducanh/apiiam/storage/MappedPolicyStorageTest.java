@@ -0,0 +1,169 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedPolicyStorageTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedPolicyStorageTest.class);
+    private static final String NAMESPACE_ID = "test-namespace";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenCheckAccess_thenMatchGrantedPermissions() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(3L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("editor", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("editor", "write", NAMESPACE_ID),
+                new RolePermissionIdOnly("viewer", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("viewer", "đọc", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("editors", "editor", NAMESPACE_ID),
+                new GroupRoleIdOnly("viewers", "viewer", NAMESPACE_ID),
+                new GroupRoleIdOnly("empty", "role-without-permission", NAMESPACE_ID));
+
+        PolicyStorage policyStorage = new MappedPolicyStorageFactory(directory)
+                .build(namespace, groupRoles, rolePermissions, List.of(
+                        new UserGroupIdOnly(1L, "editors", NAMESPACE_ID),
+                        new UserGroupIdOnly(2L, "viewers", NAMESPACE_ID),
+                        new UserGroupIdOnly(2L, "empty", NAMESPACE_ID)));
+
+        assertEquals(NAMESPACE_ID, policyStorage.getNamespaceId());
+        assertEquals(3L, policyStorage.getVersion());
+        assertTrue(policyStorage.checkAccess("editors", "read"));
+        assertTrue(policyStorage.checkAccess("editors", "write"));
+        assertTrue(policyStorage.checkAccess("viewers", "read"));
+        assertTrue(policyStorage.checkAccess("viewers", "đọc"));
+        assertFalse(policyStorage.checkAccess("viewers", "write"));
+        assertFalse(policyStorage.checkAccess("empty", "read"));
+        assertFalse(policyStorage.checkAccess("unknown-group", "read"));
+        assertFalse(policyStorage.checkAccess("editors", "unknown-permission"));
+        assertTrue(policyStorage.checkUserAccess(1L, "write"));
+        assertTrue(policyStorage.checkUserAccess(2L, "đọc"));
+        assertFalse(policyStorage.checkUserAccess(2L, "write"));
+        assertFalse(policyStorage.checkUserAccess(3L, "read"));
+        assertEquals(List.of("read", "write", "đọc"),
+                policyStorage.findEffectivePermissions(List.of("viewers", "editors", "unknown-group")));
+        assertEquals(List.of(), policyStorage.findEffectivePermissions(List.of("empty")));
+        assertTrue(policyStorage.applyChanges(List.of(), 4L).isEmpty());
+    }
+
+    @Test
+    void whenGrantWildcard_thenMatchPermissionsBelowPrefix() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("order-admin", "orders:*", NAMESPACE_ID),
+                new RolePermissionIdOnly("reader", "billing:read", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("order-admins", "order-admin", NAMESPACE_ID),
+                new GroupRoleIdOnly("readers", "reader", NAMESPACE_ID));
+
+        PolicyStorage policyStorage = new MappedPolicyStorageFactory(directory)
+                .build(namespace, groupRoles, rolePermissions, List.of(
+                        new UserGroupIdOnly(1L, "order-admins", NAMESPACE_ID)));
+
+        assertTrue(policyStorage.checkAccess("order-admins", "orders:read"));
+        assertTrue(policyStorage.checkAccess("order-admins", "orders:items:write"));
+        assertFalse(policyStorage.checkAccess("order-admins", "orders"));
+        assertFalse(policyStorage.checkAccess("readers", "orders:read"));
+        assertTrue(policyStorage.checkUserAccess(1L, "orders:cancel"));
+        assertEquals(List.of("order-admins"),
+                policyStorage.findGroupsGranting("orders:read", 0, 10).orElseThrow().ids());
+    }
+
+    @Test
+    void whenReopenAfterRestart_thenSameVersionIsServedWithoutRebuild() throws IOException {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(new RolePermissionIdOnly("editor", "read", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(new GroupRoleIdOnly("editors", "editor", NAMESPACE_ID));
+        new MappedPolicyStorageFactory(directory).build(namespace, groupRoles, rolePermissions, List.of());
+        namespace.setVersion(2L);
+        new MappedPolicyStorageFactory(directory).build(namespace, groupRoles, List.of(), List.of());
+
+        MappedPolicyStorageFactory restarted = new MappedPolicyStorageFactory(directory);
+        PolicyStorage reopened = restarted.open(namespace).orElseThrow();
+
+        assertEquals(2L, reopened.getVersion());
+        assertFalse(reopened.checkAccess("editors", "read"));
+        assertTrue(restarted.open(Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build()).isEmpty());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void whenCompareWithBitmapStorage_thenSameDecisions() {
+        SyntheticNamespace synthetic = SyntheticNamespace.generate(NAMESPACE_ID, 2_000, 5, 500,
+                20, 1_000, 42);
+        PolicyStorage bitmapStorage = new BitmapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+        PolicyStorage mappedStorage = new MappedPolicyStorageFactory(directory).build(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions(), List.of());
+
+        int granted = assertSameDecisions(synthetic, bitmapStorage, mappedStorage, 10_000);
+        assertTrue(granted > 0);
+    }
+
+    // Run with -Ppolicy.benchmark=true, heap deltas are only logged as they depend on the GC.
+    @Test
+    @EnabledIfSystemProperty(named = "policy.benchmark", matches = "true")
+    void whenLoadMillionsOfEdges_thenSameDecisionsAsBitmapStorageOffHeap() {
+        // 200k groups * 5 roles + 20k roles * 50 permissions = 2M edges
+        SyntheticNamespace synthetic = SyntheticNamespace.generate(NAMESPACE_ID, 200_000, 5, 20_000,
+                50, 20_000, 42);
+
+        long baseline = usedHeap();
+        PolicyStorage bitmapStorage = new BitmapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+        long bitmapHeap = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        PolicyStorage mappedStorage = new MappedPolicyStorageFactory(directory).build(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions(), List.of());
+        long mappedHeap = usedHeap() - baseline;
+
+        int granted = assertSameDecisions(synthetic, bitmapStorage, mappedStorage, 100_000);
+        log.info("Bitmap storage heap: {} KB, mapped storage heap: {} KB, granted checks: {}",
+                bitmapHeap / 1024, mappedHeap / 1024, granted);
+    }
+
+    private static int assertSameDecisions(SyntheticNamespace synthetic, PolicyStorage expected,
+                                           PolicyStorage actual, int checks) {
+        Random random = new Random(7);
+        int granted = 0;
+        for (int i = 0; i < checks; i++) {
+            String groupId = "group-" + random.nextInt(synthetic.groups());
+            String permissionId = "permission-" + random.nextInt(synthetic.permissions());
+            Boolean decision = expected.checkAccess(groupId, permissionId);
+            assertEquals(decision, actual.checkAccess(groupId, permissionId));
+            granted += decision ? 1 : 0;
+        }
+        return granted;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
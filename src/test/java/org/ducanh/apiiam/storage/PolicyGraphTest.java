@@ -0,0 +1,65 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.dto.events.PolicyChange;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicyGraphTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyGraphTest.class);
+    private static final String NAMESPACE_ID = "test-namespace";
+
+    @Test
+    void whenFreezeInParallel_thenIdenticalToSequential() throws IOException {
+        // 50k groups, well above the parallel threshold
+        PolicyRows rows = SyntheticNamespace.stream(NAMESPACE_ID, 50_000, 5, 5_000, 50, 10_000, 42);
+
+        PolicyGraph sequential = load(rows);
+        long start = System.nanoTime();
+        sequential.freeze(false);
+        long sequentialMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        PolicyGraph parallel = load(rows);
+        start = System.nanoTime();
+        parallel.freeze(true);
+        long parallelMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("Freeze of {} groups: sequential {} ms, parallel {} ms on {} cores", sequential.groupCount(),
+                sequentialMillis, parallelMillis, Runtime.getRuntime().availableProcessors());
+        assertArrayEquals(bytesOf(sequential), bytesOf(parallel));
+
+        List<PolicyChange> changes = List.of(
+                PolicyChange.rolePermissionsAdded("role-1", List.of("permission-new")),
+                PolicyChange.roleDeleted("role-2"),
+                PolicyChange.groupRolesAdded("group-new", List.of("role-1")));
+        PolicyGraph sequentialNext = sequential.edit();
+        changes.forEach(sequentialNext::apply);
+        PolicyGraph parallelNext = parallel.edit();
+        changes.forEach(parallelNext::apply);
+        assertArrayEquals(bytesOf(sequentialNext.freeze(false)), bytesOf(parallelNext.freeze(true)));
+    }
+
+    private static PolicyGraph load(PolicyRows rows) {
+        PolicyGraph graph = PolicyGraph.empty();
+        rows.forEachRolePermission(rp -> graph.addRolePermission(rp.roleId(), rp.permissionId()));
+        rows.forEachGroupRole(gr -> graph.addGroupRole(gr.groupId(), gr.roleId()));
+        return graph;
+    }
+
+    private static byte[] bytesOf(PolicyGraph graph) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            graph.write(out);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RoleInheritanceIdOnly;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Peak live heap while building a namespace of 5M role_permission rows from lists, as the
+ * repositories used to return them, versus streamed rows. Run with -Ppolicy.benchmark=true.
+ */
+@EnabledIfSystemProperty(named = "policy.benchmark", matches = "true")
+class PolicyRowsStreamingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyRowsStreamingBenchmarkTest.class);
+    private static final String NAMESPACE_ID = "benchmark-namespace";
+    // 50k roles * 100 permissions = 5M role_permission rows
+    private static final int GROUPS = 20_000;
+    private static final int ROLES_PER_GROUP = 5;
+    private static final int ROLES = 50_000;
+    private static final int PERMISSIONS_PER_ROLE = 100;
+    private static final int PERMISSIONS = 20_000;
+    private static final int SAMPLE_EVERY = 500_000;
+
+    @Test
+    void whenBuildFromStreamedRows_thenSameDecisionsWithLowerPeakHeap() {
+        long baseline = usedHeap();
+        long start = System.nanoTime();
+        SyntheticNamespace synthetic = SyntheticNamespace.generate(NAMESPACE_ID, GROUPS, ROLES_PER_GROUP, ROLES,
+                PERMISSIONS_PER_ROLE, PERMISSIONS, 42);
+        PeakHeap listPeak = new PeakHeap(baseline);
+        PolicyStorage fromLists = new BitmapPolicyStorage(synthetic.namespace(), listPeak.sampling(
+                PolicyRows.of(synthetic.groupRoles(), synthetic.rolePermissions(), List.of())));
+        long listMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long listPeakBytes = listPeak.peak;
+        synthetic = null;
+
+        baseline = usedHeap();
+        start = System.nanoTime();
+        PeakHeap streamPeak = new PeakHeap(baseline);
+        PolicyStorage fromStream = new BitmapPolicyStorage(
+                Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build(),
+                streamPeak.sampling(SyntheticNamespace.stream(NAMESPACE_ID, GROUPS, ROLES_PER_GROUP, ROLES,
+                        PERMISSIONS_PER_ROLE, PERMISSIONS, 42)));
+        long streamMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            String groupId = "group-" + random.nextInt(GROUPS);
+            String permissionId = "permission-" + random.nextInt(PERMISSIONS);
+            assertEquals(fromLists.checkAccess(groupId, permissionId), fromStream.checkAccess(groupId, permissionId));
+        }
+        log.info("Lists: peak heap {} MB, took {} ms", listPeakBytes >> 20, listMillis);
+        log.info("Streamed rows: peak heap {} MB, took {} ms", streamPeak.peak >> 20, streamMillis);
+        assertTrue(streamPeak.peak < listPeakBytes,
+                "Streamed build peaked at " + streamPeak.peak + " bytes, list build at " + listPeakBytes);
+    }
+
+    // Live heap above the baseline, sampled after a full gc every SAMPLE_EVERY rows.
+    private static final class PeakHeap {
+        private final long baseline;
+        private long rows;
+        private long peak;
+
+        private PeakHeap(long baseline) {
+            this.baseline = baseline;
+        }
+
+        private <T> Consumer<T> sample(Consumer<T> action) {
+            return (row) -> {
+                action.accept(row);
+                if (++rows % SAMPLE_EVERY == 0) {
+                    peak = Math.max(peak, usedHeap() - baseline);
+                }
+            };
+        }
+
+        private PolicyRows sampling(PolicyRows rows) {
+            return new PolicyRows() {
+                @Override
+                public void forEachGroupRole(Consumer<GroupRoleIdOnly> action) {
+                    rows.forEachGroupRole(sample(action));
+                }
+
+                @Override
+                public void forEachRolePermission(Consumer<RolePermissionIdOnly> action) {
+                    rows.forEachRolePermission(sample(action));
+                }
+
+                @Override
+                public void forEachUserGroup(Consumer<UserGroupIdOnly> action) {
+                    rows.forEachUserGroup(sample(action));
+                }
+
+                @Override
+                public void forEachRoleInheritance(Consumer<RoleInheritanceIdOnly> action) {
+                    rows.forEachRoleInheritance(sample(action));
+                }
+            };
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,62 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.Namespace;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicySlotTest {
+
+    private static final String NAMESPACE_ID = "test-namespace";
+
+    @Test
+    void whenOlderVersionPublished_thenKeepNewerSnapshot() {
+        PolicySlot slot = new PolicySlot();
+        PolicyStorage newer = storage(5L);
+
+        assertTrue(slot.publish(newer));
+        assertFalse(slot.publish(storage(4L)));
+        assertSame(newer, slot.get());
+
+        PolicyStorage sameVersion = storage(5L);
+        assertTrue(slot.publish(sameVersion));
+        assertSame(sameVersion, slot.get());
+    }
+
+    @Test
+    void whenDerivedSnapshotRacesWithRebuild_thenDerivedIsRejected() {
+        PolicySlot slot = new PolicySlot();
+        PolicyStorage base = storage(1L);
+        slot.publish(base);
+        PolicyStorage rebuilt = storage(3L);
+        slot.publish(rebuilt);
+
+        assertFalse(slot.publish(base, storage(2L)));
+        assertSame(rebuilt, slot.get());
+    }
+
+    @Test
+    void whenRebuildsFinishOutOfOrder_thenHighestVersionWins() {
+        PolicySlot slot = new PolicySlot();
+        List<Long> versions = new ArrayList<>(LongStream.rangeClosed(1, 200).boxed().toList());
+        Collections.shuffle(versions);
+
+        CompletableFuture.allOf(IntStream.range(0, versions.size())
+                .mapToObj(i -> CompletableFuture.runAsync(() -> slot.publish(storage(versions.get(i)))))
+                .toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(200L, slot.get().getVersion());
+    }
+
+    private PolicyStorage storage(Long version) {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(version).build();
+        return new BitmapPolicyStorage(namespace, List.of(), List.of());
+    }
+}
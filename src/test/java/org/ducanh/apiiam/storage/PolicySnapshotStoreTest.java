@@ -0,0 +1,94 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.dto.events.PolicyChange;
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicySnapshotStoreTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicySnapshotStoreTest.class);
+    private static final String NAMESPACE_ID = "test-namespace";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenLoadSnapshot_thenSameDecisionsAndDeltasStillApply() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(1L).build();
+        List<RolePermissionIdOnly> rolePermissions = List.of(
+                new RolePermissionIdOnly("editor", "read", NAMESPACE_ID),
+                new RolePermissionIdOnly("editor", "write", NAMESPACE_ID),
+                new RolePermissionIdOnly("viewer", "read", NAMESPACE_ID));
+        List<GroupRoleIdOnly> groupRoles = List.of(
+                new GroupRoleIdOnly("editors", "editor", NAMESPACE_ID),
+                new GroupRoleIdOnly("viewers", "viewer", NAMESPACE_ID));
+        BitmapPolicyStorage changed = (BitmapPolicyStorage) new BitmapPolicyStorage(namespace, groupRoles, rolePermissions)
+                .applyChanges(List.of(PolicyChange.groupRolesAdded("auditors", List.of("viewer"))), 2L)
+                .orElseThrow();
+        new PolicySnapshotStore(directory).save(changed);
+
+        namespace.setVersion(2L);
+        PolicyStorage loaded = new PolicySnapshotStore(directory).load(namespace).orElseThrow();
+
+        assertEquals(NAMESPACE_ID, loaded.getNamespaceId());
+        assertEquals(2L, loaded.getVersion());
+        assertTrue(loaded.checkAccess("editors", "write"));
+        assertTrue(loaded.checkAccess("auditors", "read"));
+        assertFalse(loaded.checkAccess("viewers", "write"));
+
+        PolicyStorage next = loaded.applyChanges(List.of(PolicyChange.rolePermissionsAdded("viewer", List.of("write"))), 3L)
+                .orElseThrow();
+        assertTrue(next.checkAccess("auditors", "write"));
+        assertTrue(next.checkAccess("viewers", "write"));
+        assertFalse(loaded.checkAccess("viewers", "write"));
+    }
+
+    @Test
+    void whenDatabaseVersionMovedOn_thenSnapshotIsNotLoaded() {
+        Namespace namespace = Namespace.builder().namespaceId(NAMESPACE_ID).version(4L).build();
+        new PolicySnapshotStore(directory).save(new BitmapPolicyStorage(namespace, List.of(), List.of()));
+
+        namespace.setVersion(5L);
+        assertTrue(new PolicySnapshotStore(directory).load(namespace).isEmpty());
+        assertTrue(new PolicySnapshotStore(directory)
+                .load(Namespace.builder().namespaceId("other-namespace").version(4L).build()).isEmpty());
+    }
+
+    @Test
+    void whenLoadLargeSnapshot_thenFasterThanRebuild() {
+        SyntheticNamespace synthetic = SyntheticNamespace.generate(NAMESPACE_ID, 100_000, 5, 10_000,
+                100, 20_000, 42);
+        PolicySnapshotStore snapshotStore = new PolicySnapshotStore(directory);
+
+        long start = System.nanoTime();
+        BitmapPolicyStorage built = new BitmapPolicyStorage(synthetic.namespace(),
+                synthetic.groupRoles(), synthetic.rolePermissions());
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        snapshotStore.save(built);
+
+        start = System.nanoTime();
+        PolicyStorage loaded = new PolicySnapshotStore(directory).load(synthetic.namespace()).orElseThrow();
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            String groupId = "group-" + random.nextInt(synthetic.groups());
+            String permissionId = "permission-" + random.nextInt(synthetic.permissions());
+            assertEquals(built.checkAccess(groupId, permissionId), loaded.checkAccess(groupId, permissionId));
+        }
+        // rows are already in memory here, a real rebuild also waits for the database queries
+        log.info("Build from rows: {} ms, load from snapshot: {} ms", buildMillis, loadMillis);
+    }
+}
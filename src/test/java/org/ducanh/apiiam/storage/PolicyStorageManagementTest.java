@@ -0,0 +1,246 @@
+package org.ducanh.apiiam.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ducanh.apiiam.dto.events.NamespaceChangeEvent;
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.repositories.GroupRoleRepository;
+import org.ducanh.apiiam.repositories.NamespaceRepository;
+import org.ducanh.apiiam.repositories.RoleInheritanceRepository;
+import org.ducanh.apiiam.repositories.RolePermissionRepository;
+import org.ducanh.apiiam.repositories.UserGroupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PolicyStorageManagementTest {
+
+    private final GroupRoleRepository groupRoleRepository = mock(GroupRoleRepository.class);
+    private final RolePermissionRepository rolePermissionRepository = mock(RolePermissionRepository.class);
+    private final UserGroupRepository userGroupRepository = mock(UserGroupRepository.class);
+    private final RoleInheritanceRepository roleInheritanceRepository = mock(RoleInheritanceRepository.class);
+    private final NamespaceRepository namespaceRepository = mock(NamespaceRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // one namespace with its own series, the others share the other series
+    private final PolicyMetrics policyMetrics = new PolicyMetrics(meterRegistry, 1);
+    private final AtomicLong namespaceVersion = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        when(namespaceRepository.findByNamespaceId(anyString())).thenAnswer(invocation -> {
+            String namespaceId = invocation.getArgument(0);
+            return namespaceId.startsWith("unknown") ? null
+                    : Namespace.builder().namespaceId(namespaceId).version(namespaceVersion.get()).build();
+        });
+        when(groupRoleRepository.streamAllByNamespaceId(anyString())).thenAnswer(invocation ->
+                Stream.of(new GroupRoleIdOnly("editors", "editor", invocation.getArgument(0))));
+        when(rolePermissionRepository.streamAllByNamespaceId(anyString())).thenAnswer(invocation ->
+                Stream.of(new RolePermissionIdOnly("editor", "read", invocation.getArgument(0))));
+    }
+
+    @Test
+    void whenConcurrentMisses_thenNamespaceIsLoadedOnce() throws Exception {
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch loading = new CountDownLatch(1);
+        when(groupRoleRepository.streamAllByNamespaceId("namespace-1")).thenAnswer(invocation -> {
+            loaderEntered.countDown();
+            loading.await(5, TimeUnit.SECONDS);
+            return Stream.of(new GroupRoleIdOnly("editors", "editor", "namespace-1"));
+        });
+        PolicyStorageManagement management = lazyManagement(0);
+        List<Thread> callers = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8, runnable -> {
+            Thread thread = new Thread(runnable);
+            callers.add(thread);
+            return thread;
+        });
+
+        try {
+            List<CompletableFuture<PolicyStorage>> futures = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(
+                            () -> management.getPolicyStorage("namespace-1"), executor))
+                    .toList();
+            assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+            // every caller is parked, either loading or waiting on the load in flight
+            await().atMost(5, TimeUnit.SECONDS).until(() -> callers.size() == 8 && callers.stream()
+                    .allMatch(thread -> thread.getState() == Thread.State.WAITING
+                            || thread.getState() == Thread.State.TIMED_WAITING));
+            loading.countDown();
+
+            for (CompletableFuture<PolicyStorage> future : futures) {
+                assertTrue(future.get(5, TimeUnit.SECONDS).checkAccess("editors", "read"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(groupRoleRepository, times(1)).streamAllByNamespaceId("namespace-1");
+        verify(namespaceRepository, never()).findAll();
+    }
+
+    @Test
+    void whenOverNamespaceBudget_thenLeastRecentlyUsedIsEvicted() {
+        PolicyStorageManagement management = lazyManagement(2);
+
+        management.getPolicyStorage("namespace-1");
+        management.getPolicyStorage("namespace-2");
+        management.getPolicyStorage("namespace-1");
+        management.getPolicyStorage("namespace-3");
+        management.getPolicyStorage("namespace-1");
+
+        verify(groupRoleRepository, times(1)).streamAllByNamespaceId("namespace-1");
+        verify(groupRoleRepository, times(1)).streamAllByNamespaceId("namespace-3");
+        management.getPolicyStorage("namespace-2");
+        verify(groupRoleRepository, times(2)).streamAllByNamespaceId("namespace-2");
+    }
+
+    @Test
+    void whenNamespaceDoesNotExist_thenNothingIsLoaded() {
+        PolicyStorageManagement management = lazyManagement(0);
+
+        assertNull(management.getPolicyStorage("unknown-namespace"));
+        verify(groupRoleRepository, never()).streamAllByNamespaceId(anyString());
+    }
+
+    @Test
+    void whenBurstOfChangesDuringRebuild_thenOnePendingRebuildReachesLatestVersion() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        PolicyStorageManagement management = new PolicyStorageManagement(groupRoleRepository,
+                rolePermissionRepository, userGroupRepository, roleInheritanceRepository, namespaceRepository,
+                executor, BitmapPolicyStorage::new, new PolicyLoadingOptions(true, 0, 0), policyMetrics, Duration.ZERO,
+                TransactionOperations.withoutTransaction());
+        management.getPolicyStorage("namespace-1");
+
+        AtomicBoolean blockNextRebuild = new AtomicBoolean(true);
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(groupRoleRepository.streamAllByNamespaceId("namespace-1")).thenAnswer(invocation -> {
+            if (blockNextRebuild.compareAndSet(true, false)) {
+                rebuilding.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return Stream.of(new GroupRoleIdOnly("editors", "editor", "namespace-1"));
+        });
+
+        namespaceVersion.set(2);
+        management.applyChanges(new NamespaceChangeEvent("namespace-1", 2L, List.of()));
+        assertTrue(rebuilding.await(5, TimeUnit.SECONDS));
+        for (long version = 3; version <= 100; version++) {
+            namespaceVersion.set(version);
+            management.applyChanges(new NamespaceChangeEvent("namespace-1", version, List.of()));
+        }
+        release.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> management.getPolicyStorage("namespace-1").getVersion() == 100L);
+        // the initial load, the rebuild in flight and the single pending one
+        verify(groupRoleRepository, times(3)).streamAllByNamespaceId("namespace-1");
+        assertEquals(99, meterRegistry.get("policy.change.events").counter().count());
+        assertEquals(2, meterRegistry.get("policy.rebuilds.executed").counter().count());
+        executor.shutdown();
+    }
+
+    @Test
+    void whenMinVersionNotPublished_thenWaitForRebuildUpToMaxWait() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        PolicyStorageManagement management = new PolicyStorageManagement(groupRoleRepository,
+                rolePermissionRepository, userGroupRepository, roleInheritanceRepository, namespaceRepository,
+                executor, BitmapPolicyStorage::new, new PolicyLoadingOptions(true, 0, 0), policyMetrics, Duration.ZERO,
+                TransactionOperations.withoutTransaction());
+        assertEquals(1L, management.getPolicyStorage("namespace-1").getVersion());
+
+        // committed in the database, the change event has not arrived yet
+        namespaceVersion.set(2);
+        assertEquals(2L, management.getPolicyStorage("namespace-1", 2L, Duration.ofSeconds(5)).getVersion());
+        assertEquals(2L, management.getPolicyStorage("namespace-1", 1L, Duration.ZERO).getVersion());
+
+        long start = System.nanoTime();
+        assertEquals(2L, management.getPolicyStorage("namespace-1", 3L, Duration.ofMillis(200)).getVersion());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        assertEquals(2, meterRegistry.get("policy.version.waits").counter().count());
+        executor.shutdown();
+    }
+
+    @Test
+    void whenChangeEventsMissed_thenReconcileRebuildsOnlyNamespacesBehind() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        PolicyStorageManagement management = new PolicyStorageManagement(groupRoleRepository,
+                rolePermissionRepository, userGroupRepository, roleInheritanceRepository, namespaceRepository,
+                executor, BitmapPolicyStorage::new, new PolicyLoadingOptions(true, 0, 0), policyMetrics, Duration.ZERO,
+                TransactionOperations.withoutTransaction());
+        management.getPolicyStorage("namespace-1");
+        management.getPolicyStorage("namespace-2");
+        when(namespaceRepository.findAll()).thenReturn(List.of(
+                Namespace.builder().namespaceId("namespace-1").version(3L).build(),
+                Namespace.builder().namespaceId("namespace-2").version(1L).build(),
+                Namespace.builder().namespaceId("namespace-3").version(7L).build()));
+
+        namespaceVersion.set(3);
+        assertEquals(1, management.reconcile());
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> management.getPolicyStorage("namespace-1").getVersion() == 3L);
+        verify(groupRoleRepository, times(2)).streamAllByNamespaceId("namespace-1");
+        verify(groupRoleRepository, times(1)).streamAllByNamespaceId("namespace-2");
+        // not loaded by this lazy node, nothing to catch up on
+        verify(groupRoleRepository, never()).streamAllByNamespaceId("namespace-3");
+        executor.shutdown();
+    }
+
+    @Test
+    void whenManyNamespaces_thenMetricsOfTheUntaggedOnesAreShared() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        PolicyStorageManagement management = new PolicyStorageManagement(groupRoleRepository,
+                rolePermissionRepository, userGroupRepository, roleInheritanceRepository, namespaceRepository,
+                executor, BitmapPolicyStorage::new, new PolicyLoadingOptions(true, 0, 0), policyMetrics, Duration.ZERO,
+                TransactionOperations.withoutTransaction());
+        management.getPolicyStorage("namespace-1");
+        management.getPolicyStorage("namespace-2");
+        management.getPolicyStorage("namespace-3");
+        // the rebuilds requested still read version 1, the lag stays visible
+        when(namespaceRepository.findAll()).thenReturn(List.of(
+                Namespace.builder().namespaceId("namespace-1").version(4L).build(),
+                Namespace.builder().namespaceId("namespace-2").version(1L).build(),
+                Namespace.builder().namespaceId("namespace-3").version(3L).build()));
+        assertEquals(2, management.reconcile());
+
+        assertEquals(1, meterRegistry.get("policy.storage.groups").tag("namespace", "namespace-1").gauge().value());
+        assertEquals(2, meterRegistry.get("policy.storage.groups").tag("namespace", "_other").gauge().value());
+        assertEquals(3, meterRegistry.get("policy.storage.version.lag").tag("namespace", "namespace-1").gauge().value());
+        assertEquals(2, meterRegistry.get("policy.storage.version.lag").tag("namespace", "_other").gauge().value());
+        assertEquals(2, meterRegistry.get("policy.rebuild.duration").tag("namespace", "_other").timer().count());
+        assertEquals(2, meterRegistry.get("policy.rebuild.duration").timers().size());
+        executor.shutdown();
+    }
+
+    private PolicyStorageManagement lazyManagement(int maxNamespaces) {
+        return new PolicyStorageManagement(groupRoleRepository, rolePermissionRepository, userGroupRepository,
+                roleInheritanceRepository, namespaceRepository,
+                new ThreadPoolTaskExecutor(), BitmapPolicyStorage::new,
+                new PolicyLoadingOptions(true, maxNamespaces, 0), policyMetrics, Duration.ZERO,
+                TransactionOperations.withoutTransaction());
+    }
+}
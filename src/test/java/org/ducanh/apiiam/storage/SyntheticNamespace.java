@@ -0,0 +1,78 @@
+package org.ducanh.apiiam.storage;
+
+import org.ducanh.apiiam.entities.GroupRoleIdOnly;
+import org.ducanh.apiiam.entities.Namespace;
+import org.ducanh.apiiam.entities.RolePermissionIdOnly;
+import org.ducanh.apiiam.entities.UserGroupIdOnly;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+record SyntheticNamespace(Namespace namespace,
+                          List<GroupRoleIdOnly> groupRoles,
+                          List<RolePermissionIdOnly> rolePermissions,
+                          int groups,
+                          int permissions) {
+
+    static SyntheticNamespace generate(String namespaceId, int groups, int rolesPerGroup, int roles,
+                                       int permissionsPerRole, int permissions, long seed) {
+        Random random = new Random(seed);
+        List<RolePermissionIdOnly> rolePermissions = new ArrayList<>(roles * permissionsPerRole);
+        for (int role = 0; role < roles; role++) {
+            for (int i = 0; i < permissionsPerRole; i++) {
+                // new String so every row carries its own copy, as rows coming from JDBC do
+                rolePermissions.add(new RolePermissionIdOnly(new String("role-" + role),
+                        new String("permission-" + random.nextInt(permissions)), namespaceId));
+            }
+        }
+        List<GroupRoleIdOnly> groupRoles = new ArrayList<>(groups * rolesPerGroup);
+        for (int group = 0; group < groups; group++) {
+            for (int i = 0; i < rolesPerGroup; i++) {
+                groupRoles.add(new GroupRoleIdOnly(new String("group-" + group),
+                        new String("role-" + random.nextInt(roles)), namespaceId));
+            }
+        }
+        Namespace namespace = Namespace.builder()
+                .namespaceId(namespaceId)
+                .version(1L)
+                .build();
+        return new SyntheticNamespace(namespace, groupRoles, rolePermissions, groups, permissions);
+    }
+
+    // Same rows as generate, produced one at a time instead of being held in lists.
+    static PolicyRows stream(String namespaceId, int groups, int rolesPerGroup, int roles,
+                             int permissionsPerRole, int permissions, long seed) {
+        return new PolicyRows() {
+            @Override
+            public void forEachGroupRole(Consumer<GroupRoleIdOnly> action) {
+                Random random = new Random(seed);
+                for (long i = 0; i < (long) roles * permissionsPerRole; i++) {
+                    random.nextInt(permissions);
+                }
+                for (int group = 0; group < groups; group++) {
+                    for (int i = 0; i < rolesPerGroup; i++) {
+                        action.accept(new GroupRoleIdOnly(new String("group-" + group),
+                                new String("role-" + random.nextInt(roles)), namespaceId));
+                    }
+                }
+            }
+
+            @Override
+            public void forEachRolePermission(Consumer<RolePermissionIdOnly> action) {
+                Random random = new Random(seed);
+                for (int role = 0; role < roles; role++) {
+                    for (int i = 0; i < permissionsPerRole; i++) {
+                        action.accept(new RolePermissionIdOnly(new String("role-" + role),
+                                new String("permission-" + random.nextInt(permissions)), namespaceId));
+                    }
+                }
+            }
+
+            @Override
+            public void forEachUserGroup(Consumer<UserGroupIdOnly> action) {
+            }
+        };
+    }
+}